@@ -0,0 +1,162 @@
+package grafo.bench;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import grafo.*;
+
+/**
+ * benchmark di costruzione e generazione dell'equilibrio del grafo, eseguiti
+ * sulla griglia di n e v indicata dai parametri. Lanciati dal main aggiungono
+ * sempre il profiler gc per misurare allocazioni e collezioni
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GrafoBenchmark {
+
+	@Param({ "5", "10", "100", "1000" })
+	private int n;
+
+	@Param({ "10", "1000" })
+	private int v;
+
+	/**
+	 * grafo gi costruito su cui misurare accessi e generazione
+	 */
+	private Grafo grafo;
+	/**
+	 * nomi di tutti i nodi del grafo, per la ricerca per colore
+	 */
+	private String[] nomi;
+	/**
+	 * sorgente casuale usata per rigenerare l'equilibrio
+	 */
+	private SplittableRandom rnd;
+	/**
+	 * generatore usato per rigenerare l'equilibrio
+	 */
+	private GeneratoreEquilibrio generatore;
+	/**
+	 * validatore usato per ricontrollare l'equilibrio sui flussi primitivi
+	 */
+	private EquilibrioValidator validatore;
+	/**
+	 * contatore per scorrere nodi e archi tra un'invocazione e l'altra
+	 */
+	private int prossimo;
+
+	@Setup
+	public void prepara() {
+		grafo = new Grafo(v, n);
+		nomi = new String[n];
+		for (int i = 0; i < n; i++) {
+			nomi[i] = grafo.getNodo(i).getColore();
+		}
+		rnd = new SplittableRandom(42);
+		generatore = new GeneratoreCircolazione();
+		validatore = new EquilibrioValidator();
+	}
+
+	@Benchmark
+	public Grafo costruzione() {
+		return new Grafo(v, n);
+	}
+
+	@Benchmark
+	public Grafo generaEq() {
+		generatore.genera(grafo, rnd);
+		return grafo;
+	}
+
+	@Benchmark
+	public Nodo getNodoPerNome() {
+		prossimo = prossimo + 1 < n ? prossimo + 1 : 0;
+		return grafo.getNodo(nomi[prossimo]);
+	}
+
+	@Benchmark
+	public Arco getArco() {
+		prossimo = prossimo + 1 < grafo.getArchi().size() ? prossimo + 1 : 0;
+		return grafo.getArco(prossimo);
+	}
+
+	@Benchmark
+	public Arco getArcoMancante() {
+		return grafo.getArco(-1);
+	}
+
+	@Benchmark
+	public void ricalcoloBilanci(Blackhole bh) {
+		// ricalcolo completo scorrendo tutti gli archi
+		int[] bilanci = new int[n];
+		for (Arco arco : grafo.getArchi().values()) {
+			int flusso = arco.getDirezione() ? -arco.getValore() : arco.getValore();
+			bilanci[arco.getNodo1().getId()] -= flusso;
+			bilanci[arco.getNodo2().getId()] += flusso;
+		}
+		bh.consume(bilanci);
+	}
+
+	@Benchmark
+	public boolean validaEquilibrio() {
+		return validatore.valida(grafo);
+	}
+
+	@Benchmark
+	public void bilanciInCache(Blackhole bh) {
+		for (int i = 0; i < n; i++) {
+			bh.consume(grafo.getBilancio(i));
+		}
+	}
+
+	/**
+	 * stato per il generatore originale, limitato ai grafi piccoli perch con
+	 * molti nodi il suo ciclo di correzione non ha un limite
+	 */
+	@State(Scope.Thread)
+	public static class StatoGreedy {
+
+		@Param({ "5", "10" })
+		private int nGreedy;
+
+		private GeneratoreEquilibrio greedy = new GeneratoreGreedy();
+	}
+
+	@Benchmark
+	public Grafo costruzioneGreedy(StatoGreedy stato) {
+		return new Grafo(v, stato.nGreedy, stato.greedy);
+	}
+
+	/**
+	 * esegue tutti i benchmark della classe con il profiler gc, accetta le
+	 * normali opzioni da riga di comando di JMH
+	 *
+	 * @param args (opzioni di JMH)
+	 * @throws RunnerException            in caso di errore durante l'esecuzione
+	 * @throws CommandLineOptionException se le opzioni non sono valide
+	 */
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions opzioni = new CommandLineOptions(args);
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(opzioni);
+		if (opzioni.getIncludes().isEmpty()) {
+			builder.include(GrafoBenchmark.class.getSimpleName());
+		}
+		builder.addProfiler(GCProfiler.class);
+		new Runner(builder.build()).run();
+	}
+
+}
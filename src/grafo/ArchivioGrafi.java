@@ -0,0 +1,302 @@
+package grafo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * archivio binario compatto di grafi generati con la stessa forma (v, n).
+ * Il file contiene un'intestazione (codice, n, v) seguita da un record di
+ * dimensione fissa per ogni grafo: il seme, i C(n,2) valori degli archi con 1, 2
+ * o 4 byte ciascuno a seconda di v e infine i bit delle direzioni. Aprendo un
+ * archivio il file viene mappato in memoria e ogni grafo letto  una vista in
+ * sola lettura sul proprio record, senza copie
+ */
+public class ArchivioGrafi implements Closeable {
+	/**
+	 * codice iniziale del file ("GEQ1")
+	 */
+	private static final int CODICE = 0x47455131;
+	/**
+	 * byte occupati dall'intestazione del file
+	 */
+	private static final int INTESTAZIONE = 16;
+	/**
+	 * canale del file aperto
+	 */
+	private FileChannel canale;
+	/**
+	 * porzioni mappate del file, ognuna con un numero intero di record
+	 */
+	private MappedByteBuffer[] segmenti;
+	/**
+	 * record contenuti in ogni porzione mappata
+	 */
+	private int grafiPerSegmento;
+	/**
+	 * numero di nodi di ogni grafo
+	 */
+	private int n;
+	/**
+	 * valore massimo degli archi di ogni grafo
+	 */
+	private int v;
+	/**
+	 * numero di grafi contenuti nell'archivio
+	 */
+	private long numeroGrafi;
+
+	/**
+	 * costruttore privato, gli archivi si aprono con {@link #apri(Path)}
+	 */
+	private ArchivioGrafi() {
+	}
+
+	/**
+	 * scrive un archivio con i grafi dati, che devono avere tutti gli stessi v e n.
+	 * Senza grafi l'archivio ha solo l'intestazione, con n e v a 0, e si riapre
+	 * come archivio vuoto
+	 *
+	 * @param file  (file da creare o sovrascrivere)
+	 * @param grafi (grafi da salvare, nell'ordine in cui verranno riletti)
+	 * @throws IOException in caso di errore di scrittura
+	 */
+	public static void scrivi(Path file, Iterable<Grafo> grafi) throws IOException {
+		try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer intestazione = ByteBuffer.allocate(INTESTAZIONE);
+			ByteBuffer record = null;
+			int n = 0, v = 0;
+			for (Grafo grafo : grafi) {
+				if (record == null) {
+					n = grafo.getN();
+					v = grafo.getV();
+					record = ByteBuffer.allocate(dimensioneRecord(n, v));
+				} else if (grafo.getN() != n || grafo.getV() != v) {
+					throw new IllegalArgumentException("tutti i grafi di un archivio devono avere gli stessi v e n");
+				}
+				if (out.position() == 0) {
+					scriviIntestazione(out, intestazione, n, v);
+				}
+				riempiRecord(record, grafo, larghezza(v));
+				while (record.hasRemaining()) {
+					out.write(record);
+				}
+			}
+			if (out.position() == 0) {
+				scriviIntestazione(out, intestazione, n, v);
+			}
+		}
+	}
+
+	/**
+	 * apre un archivio mappandolo in memoria in sola lettura
+	 *
+	 * @param file (file dell'archivio)
+	 * @return l'archivio aperto
+	 * @throws IOException se il file non  leggibile o non  un archivio valido
+	 */
+	public static ArchivioGrafi apri(Path file) throws IOException {
+		ArchivioGrafi archivio = new ArchivioGrafi();
+		archivio.canale = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			ByteBuffer intestazione = ByteBuffer.allocate(INTESTAZIONE);
+			while (intestazione.hasRemaining()) {
+				if (archivio.canale.read(intestazione) < 0) {
+					throw new IOException("intestazione dell'archivio incompleta");
+				}
+			}
+			intestazione.flip();
+			if (intestazione.getInt() != CODICE) {
+				throw new IOException("il file non  un archivio di grafi");
+			}
+			archivio.n = intestazione.getInt();
+			archivio.v = intestazione.getInt();
+			// n e v a 0 indicano un archivio scritto senza grafi
+			boolean vuoto = archivio.n == 0 && archivio.v == 0;
+			if (archivio.n < 0 || archivio.v < 1 && !vuoto) {
+				throw new IOException("intestazione dell'archivio non valida: n=" + archivio.n + ", v=" + archivio.v);
+			}
+			long dimensione = dimensioneRecord(archivio.n, archivio.v);
+			long dati = archivio.canale.size() - INTESTAZIONE;
+			if (dati % dimensione != 0 || vuoto && dati != 0) {
+				throw new IOException("archivio troncato");
+			}
+			archivio.numeroGrafi = dati / dimensione;
+			archivio.grafiPerSegmento = (int) Math.max(1, Integer.MAX_VALUE / dimensione);
+			int numeroSegmenti = (int) ((archivio.numeroGrafi + archivio.grafiPerSegmento - 1)
+					/ archivio.grafiPerSegmento);
+			archivio.segmenti = new MappedByteBuffer[numeroSegmenti];
+			for (int s = 0; s < numeroSegmenti; s++) {
+				long primo = (long) s * archivio.grafiPerSegmento;
+				long quanti = Math.min(archivio.grafiPerSegmento, archivio.numeroGrafi - primo);
+				archivio.segmenti[s] = archivio.canale.map(FileChannel.MapMode.READ_ONLY,
+						INTESTAZIONE + primo * dimensione, quanti * dimensione);
+			}
+		} catch (IOException | RuntimeException e) {
+			archivio.canale.close();
+			throw e;
+		}
+		return archivio;
+	}
+
+	/**
+	 * ritorna il grafo k come vista in sola lettura sul suo record, modificare un
+	 * suo arco lancia UnsupportedOperationException
+	 *
+	 * @param k (posizione del grafo nell'archivio)
+	 * @return il grafo letto
+	 * @throws IllegalStateException se l'archivio  gi stato chiuso
+	 */
+	public Grafo getGrafo(long k) {
+		MappedByteBuffer[] aperti = segmenti;
+		if (aperti == null) {
+			throw new IllegalStateException("archivio gi chiuso");
+		}
+		if (k < 0 || k >= numeroGrafi) {
+			throw new IndexOutOfBoundsException("grafo " + k + " non presente, l'archivio ne contiene " + numeroGrafi);
+		}
+		int dimensione = dimensioneRecord(n, v);
+		ByteBuffer record = aperti[(int) (k / grafiPerSegmento)]
+				.slice((int) (k % grafiPerSegmento) * dimensione, dimensione);
+		long seme = record.getLong(0);
+		return new Grafo(v, seme, new MemoriaArchiMappata(n, larghezza(v), record.slice(8, dimensione - 8)));
+	}
+
+	/**
+	 * ritorna il numero di grafi contenuti nell'archivio
+	 *
+	 * @return il numero di grafi
+	 */
+	public long getNumeroGrafi() {
+		return numeroGrafi;
+	}
+
+	/**
+	 * ritorna il numero di nodi dei grafi dell'archivio
+	 *
+	 * @return il numero di nodi
+	 */
+	public int getN() {
+		return n;
+	}
+
+	/**
+	 * ritorna il valore massimo degli archi dei grafi dell'archivio
+	 *
+	 * @return il valore massimo
+	 */
+	public int getV() {
+		return v;
+	}
+
+	/**
+	 * chiude il file, la memoria mappata viene rilasciata quando i grafi letti non
+	 * sono pi raggiungibili. I grafi gi letti restano utilizzabili, mentre
+	 * {@link #getGrafo(long)} lancia IllegalStateException
+	 */
+	@Override
+	public void close() throws IOException {
+		segmenti = null;
+		canale.close();
+	}
+
+	/**
+	 * ritorna i byte usati per memorizzare ogni valore con potenza massima v
+	 *
+	 * @param v (valore massimo di un arco)
+	 * @return 1, 2 o 4 byte
+	 */
+	static int larghezza(int v) {
+		if (v <= 0xFF) {
+			return 1;
+		}
+		if (v <= 0xFFFF) {
+			return 2;
+		}
+		return 4;
+	}
+
+	/**
+	 * ritorna la dimensione in byte del record di un grafo
+	 *
+	 * @param n (numero di nodi)
+	 * @param v (valore massimo di un arco)
+	 * @return la dimensione del record
+	 */
+	static int dimensioneRecord(int n, int v) {
+		long archi = (long) n * (n - 1) / 2;
+		long dimensione = 8 + archi * larghezza(v) + (archi + 7) / 8;
+		if (dimensione > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("grafo troppo grande per un record dell'archivio");
+		}
+		return (int) dimensione;
+	}
+
+	/**
+	 * scrive l'intestazione del file
+	 *
+	 * @param out          (canale del file)
+	 * @param intestazione (buffer da riempire)
+	 * @param n            (numero di nodi)
+	 * @param v            (valore massimo di un arco)
+	 * @throws IOException in caso di errore di scrittura
+	 */
+	private static void scriviIntestazione(FileChannel out, ByteBuffer intestazione, int n, int v) throws IOException {
+		intestazione.clear();
+		intestazione.putInt(CODICE).putInt(n).putInt(v).putInt(0);
+		intestazione.flip();
+		while (intestazione.hasRemaining()) {
+			out.write(intestazione);
+		}
+	}
+
+	/**
+	 * riempie il record con seme, valori e direzioni del grafo
+	 *
+	 * @param record    (buffer del record)
+	 * @param grafo     (grafo da salvare)
+	 * @param larghezza (byte usati per ogni valore)
+	 */
+	private static void riempiRecord(ByteBuffer record, Grafo grafo, int larghezza) {
+		MemoriaArchi tabella = grafo.getTabella();
+		int archi = tabella.getNumeroArchi();
+		long massimo = larghezza == 4 ? Integer.MAX_VALUE : (1L << (8 * larghezza)) - 1;
+		record.clear();
+		record.putLong(grafo.getSeme());
+		for (int a = 0; a < archi; a++) {
+			int valore = tabella.getValore(a);
+			if (valore < 0 || valore > massimo) {
+				throw new IllegalArgumentException("valore " + valore + " dell'arco " + a + " fuori dal formato");
+			}
+			if (larghezza == 1) {
+				record.put((byte) valore);
+			} else if (larghezza == 2) {
+				record.putShort((short) valore);
+			} else {
+				record.putInt(valore);
+			}
+		}
+		int bit = 0;
+		byte corrente = 0;
+		for (int a = 0; a < archi; a++) {
+			if (tabella.getDirezione(a)) {
+				corrente |= 1 << bit;
+			}
+			if (++bit == 8) {
+				record.put(corrente);
+				bit = 0;
+				corrente = 0;
+			}
+		}
+		if (bit > 0) {
+			record.put(corrente);
+		}
+		record.flip();
+	}
+
+}
@@ -4,19 +4,26 @@ public class Arco {
 	/**
 	 * prmio nodo di appartenenza dell'Arco
 	 */
-	private Nodo nodo1;
+	private final Nodo nodo1;
 	/**
 	 * secondo nodo di appartenenza dell'arco
 	 */
-	private Nodo nodo2;
+	private final Nodo nodo2;
 	/**
-	 * valore dell'arco
+	 * grafo completo di cui l'arco  una vista, null per gli archi creati al di
+	 * fuori di un grafo. Tabella e chiave vengono chieste al grafo a ogni accesso,
+	 * quindi la vista resta valida anche quando il grafo cambia memoria o cresce
 	 */
-	private int valore;
+	private final Grafo grafo;
 	/**
-	 * direzione dell'arco, 0 da nodo1 a nodo2, 1 da nodo2 a nodo1
+	 * tabella che contiene valore e direzione degli archi fuori da un grafo, null
+	 * per l'arco vuoto e per le viste di un grafo
 	 */
-	private boolean direzione;
+	private final MemoriaArchi tabella;
+	/**
+	 * chiave dell'arco all'interno della tabella degli archi fuori da un grafo
+	 */
+	private final int indice;
 
 	/**
 	 * costruttore dove vengono inseriti i nodi di appartenenza
@@ -25,19 +32,108 @@ public class Arco {
 	 * @param nodo2 (secondo nodo di appartenenza)
 	 */
 	public Arco(Nodo nodo1, Nodo nodo2) {
+		this(nodo1, nodo2, new MatriceFlussi(2, Short.MAX_VALUE), 0);
+	}
+
+	/**
+	 * costruttore della vista di un arco memorizzato nella tabella del grafo, con
+	 * tabella null crea l'arco vuoto che non pu essere modificato
+	 * 
+	 * @param nodo1   (primo nodo di appartenenza)
+	 * @param nodo2   (secondo nodo di appartenenza)
+	 * @param tabella (tabella degli archi del grafo)
+	 * @param indice  (chiave dell'arco nella tabella)
+	 */
+	Arco(Nodo nodo1, Nodo nodo2, MemoriaArchi tabella, int indice) {
+		this.nodo1 = nodo1;
+		this.nodo2 = nodo2;
+		this.grafo = null;
+		this.tabella = tabella;
+		this.indice = indice;
+	}
+
+	/**
+	 * costruttore della vista dell'arco tra due nodi di un grafo completo
+	 * 
+	 * @param grafo (grafo di appartenenza)
+	 * @param nodo1 (primo nodo, con indice minore)
+	 * @param nodo2 (secondo nodo, con indice maggiore)
+	 */
+	Arco(Grafo grafo, Nodo nodo1, Nodo nodo2) {
 		this.nodo1 = nodo1;
 		this.nodo2 = nodo2;
+		this.grafo = grafo;
+		this.tabella = null;
+		this.indice = -1;
+	}
+
+	/**
+	 * ritorna la tabella che contiene l'arco
+	 * 
+	 * @return la tabella, null per l'arco vuoto
+	 */
+	private MemoriaArchi tabella() {
+		return grafo != null ? grafo.getTabella() : tabella;
+	}
+
+	/**
+	 * ritorna la chiave dell'arco nella tabella, calcolata dai nodi nelle viste
+	 * di un grafo
+	 * 
+	 * @return la chiave dell'arco
+	 */
+	private int indice() {
+		return grafo != null ? MemoriaArchi.indice(nodo1.getId(), nodo2.getId(), grafo.getN()) : indice;
 	}
 
 	/**
-	 * set del valroe dell'arco con la sua direzione
+	 * set del valroe dell'arco con la sua direzione. L'arco  memorizzato come un
+	 * solo flusso con segno, quindi un arco a 0 non ha direzione e
+	 * {@link #getDirezione()} ritorna false
 	 * 
-	 * @param v (valore da assegnare all'arco)
+	 * @param v (valore da assegnare all'arco, 0 o positivo)
 	 * @param d (direzione dell'arco)
+	 * @throws IllegalArgumentException se v  negativo
 	 */
 	public void setValore(int v, boolean d) {
-		valore = v;
-		direzione = d;
+		controllaValore(v);
+		MemoriaArchi t = tabella();
+		if (t != null) {
+			t.setValore(indice(), v, d);
+		}
+	}
+
+	/**
+	 * imposta valore e direzione dell'arco solo se non sono cambiati rispetto a
+	 * quelli attesi, nei grafi concorrenti il controllo e la scrittura sono
+	 * un'unica operazione atomica
+	 * 
+	 * @param valoreAtteso    (valore letto in precedenza)
+	 * @param direzioneAttesa (direzione letta in precedenza)
+	 * @param v               (valore da assegnare all'arco, 0 o positivo)
+	 * @param d               (direzione dell'arco)
+	 * @return true se l'arco  stato modificato
+	 * @throws IllegalArgumentException se v  negativo
+	 */
+	public boolean compareAndSet(int valoreAtteso, boolean direzioneAttesa, int v, boolean d) {
+		controllaValore(v);
+		MemoriaArchi t = tabella();
+		if (t == null) {
+			return false;
+		}
+		return t.confrontaEImposta(indice(), direzioneAttesa ? -valoreAtteso : valoreAtteso, d ? -v : v);
+	}
+
+	/**
+	 * rifiuta i valori negativi, che il flusso con segno scambierebbe per la
+	 * direzione opposta
+	 * 
+	 * @param v (valore da controllare)
+	 */
+	private static void controllaValore(int v) {
+		if (v < 0) {
+			throw new IllegalArgumentException("valore dell'arco negativo: " + v);
+		}
 	}
 
 	/**
@@ -64,7 +160,35 @@ public class Arco {
 	 * @return il valore dell'arco
 	 */
 	public int getValore() {
-		return valore;
+		MemoriaArchi t = tabella();
+		if (t == null) {
+			return 0;
+		}
+		return t.getValore(indice());
+	}
+
+	/**
+	 * ritorna il flusso con segno dell'arco, positivo se va dal primo al secondo
+	 * nodo. Valore e direzione vengono letti insieme, quindi anche nei grafi
+	 * concorrenti sono sempre coerenti tra loro
+	 * 
+	 * @return il flusso dell'arco
+	 */
+	public int getFlusso() {
+		MemoriaArchi t = tabella();
+		if (t == null) {
+			return 0;
+		}
+		return t.getFlusso(indice());
+	}
+
+	/**
+	 * ritorna se l'arco  quello vuoto usato in caso di errore
+	 * 
+	 * @return true se l'arco  vuoto
+	 */
+	public boolean isVuoto() {
+		return grafo == null && tabella == null;
 	}
 
 	/**
@@ -73,7 +197,11 @@ public class Arco {
 	 * @return la direzione dell'arco
 	 */
 	public boolean getDirezione() {
-		return direzione;
+		MemoriaArchi t = tabella();
+		if (t == null) {
+			return false;
+		}
+		return t.getDirezione(indice());
 	}
 
 }
@@ -0,0 +1,207 @@
+package grafo;
+
+import java.util.*;
+
+/**
+ * verifica che un grafo sia davvero in equilibrio ricalcolando da zero il
+ * bilancio di ogni nodo a partire dai flussi degli archi, senza fidarsi dei
+ * bilanci tenuti dalla memoria, e controlla che ogni arco valga tra 1 e v.
+ * Sulla matrice dei flussi lavora riga per riga: la riga del nodo i  contigua,
+ * la sua somma  l'uscita di i e viene sommata elemento per elemento ai nodi
+ * successivi, quindi i cicli interni sono semplici somme tra array che il
+ * compilatore JIT trasforma in istruzioni vettoriali. Le altre memorie vengono
+ * lette arco per arco. Il buffer dei bilanci viene riusato tra una verifica e
+ * l'altra, quindi un'istanza non va usata da pi thread insieme
+ */
+public class EquilibrioValidator {
+	/**
+	 * bilanci ricalcolati dell'ultimo grafo verificato
+	 */
+	private int[] netti = new int[0];
+	/**
+	 * valore assoluto minimo e massimo tra gli archi dell'ultimo grafo verificato
+	 */
+	private int minimo;
+	private int massimo;
+
+	/**
+	 * controlla che tutti i nodi del grafo siano in equilibrio e che tutti gli
+	 * archi valgano tra 1 e v
+	 *
+	 * @param grafo (grafo da verificare)
+	 * @return true se il grafo  valido
+	 */
+	public boolean valida(Grafo grafo) {
+		int n = grafo.getN();
+		calcola(grafo);
+		if (n > 1 && (minimo < 1 || massimo > grafo.getV())) {
+			return false;
+		}
+		for (int i = 0; i < n; i++) {
+			if (netti[i] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * controlla che tutti i nodi del grafo sparso siano in equilibrio e che tutti
+	 * gli archi valgano tra 1 e v, scorrendo l'elenco degli archi una volta sola
+	 *
+	 * @param grafo (grafo sparso da verificare)
+	 * @return true se il grafo  valido
+	 */
+	public boolean valida(GrafoSparso grafo) {
+		int n = grafo.getN();
+		if (netti.length < n) {
+			netti = new int[n];
+		} else {
+			Arrays.fill(netti, 0, n, 0);
+		}
+		for (int a = 0; a < grafo.getNumeroArchi(); a++) {
+			int f = grafo.getFlusso(a);
+			if (f == 0 || f > grafo.getV() || f < -grafo.getV()) {
+				return false;
+			}
+			netti[grafo.getNodo1(a)] -= f;
+			netti[grafo.getNodo2(a)] += f;
+		}
+		for (int i = 0; i < n; i++) {
+			if (netti[i] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * verifica tutti i grafi della lista
+	 *
+	 * @param grafi (grafi da verificare)
+	 * @return le posizioni nella lista dei grafi non validi, vuoto se sono tutti
+	 *         validi
+	 */
+	public BitSet validaTutti(List<Grafo> grafi) {
+		BitSet nonValidi = new BitSet();
+		for (int k = 0; k < grafi.size(); k++) {
+			if (!valida(grafi.get(k))) {
+				nonValidi.set(k);
+			}
+		}
+		return nonValidi;
+	}
+
+	/**
+	 * ricalcola il bilancio (ingressi - uscite) di ogni nodo dai flussi degli
+	 * archi
+	 *
+	 * @param grafo (grafo di cui calcolare i bilanci)
+	 * @return una copia dei bilanci ricalcolati
+	 */
+	public int[] calcolaBilanci(Grafo grafo) {
+		calcola(grafo);
+		return Arrays.copyOf(netti, grafo.getN());
+	}
+
+	/**
+	 * ricalcola bilanci, minimo e massimo nei campi dell'istanza
+	 *
+	 * @param grafo (grafo da leggere)
+	 */
+	private void calcola(Grafo grafo) {
+		int n = grafo.getN();
+		if (netti.length < n) {
+			netti = new int[n];
+		} else {
+			Arrays.fill(netti, 0, n, 0);
+		}
+		minimo = Integer.MAX_VALUE;
+		massimo = 0;
+		MemoriaArchi tabella = grafo.getTabella();
+		if (tabella instanceof MatriceFlussi) {
+			MatriceFlussi matrice = (MatriceFlussi) tabella;
+			if (matrice.getCorti() != null) {
+				righe(matrice.getCorti(), n);
+			} else {
+				righe(matrice.getInteri(), n);
+			}
+			return;
+		}
+		int a = 0;
+		for (int i = 0; i < n; i++) {
+			for (int c = i + 1; c < n; c++) {
+				int f = tabella.getFlusso(a++);
+				netti[i] -= f;
+				netti[c] += f;
+				minimo = Math.min(minimo, Math.abs(f));
+				massimo = Math.max(massimo, Math.abs(f));
+			}
+		}
+	}
+
+	/**
+	 * scorre la matrice dei flussi memorizzata come short[]
+	 *
+	 * @param flussi (flussi riga per riga)
+	 * @param n      (numero di nodi)
+	 */
+	private void righe(short[] flussi, int n) {
+		int[] netti = this.netti;
+		int minimo = this.minimo;
+		int massimo = this.massimo;
+		int inizio = 0;
+		for (int i = 0; i < n - 1; i++) {
+			int lunghezza = n - 1 - i;
+			int destinazione = i + 1;
+			// ingressi dei nodi successivi
+			for (int k = 0; k < lunghezza; k++) {
+				netti[destinazione + k] += flussi[inizio + k];
+			}
+			// uscita di i e limiti dei valori
+			int uscita = 0;
+			for (int k = 0; k < lunghezza; k++) {
+				int f = flussi[inizio + k];
+				uscita += f;
+				minimo = Math.min(minimo, Math.abs(f));
+				massimo = Math.max(massimo, Math.abs(f));
+			}
+			netti[i] -= uscita;
+			inizio += lunghezza;
+		}
+		this.minimo = minimo;
+		this.massimo = massimo;
+	}
+
+	/**
+	 * scorre la matrice dei flussi memorizzata come int[]
+	 *
+	 * @param flussi (flussi riga per riga)
+	 * @param n      (numero di nodi)
+	 */
+	private void righe(int[] flussi, int n) {
+		int[] netti = this.netti;
+		int minimo = this.minimo;
+		int massimo = this.massimo;
+		int inizio = 0;
+		for (int i = 0; i < n - 1; i++) {
+			int lunghezza = n - 1 - i;
+			int destinazione = i + 1;
+			for (int k = 0; k < lunghezza; k++) {
+				netti[destinazione + k] += flussi[inizio + k];
+			}
+			int uscita = 0;
+			for (int k = 0; k < lunghezza; k++) {
+				int f = flussi[inizio + k];
+				uscita += f;
+				minimo = Math.min(minimo, Math.abs(f));
+				massimo = Math.max(massimo, Math.abs(f));
+			}
+			netti[i] -= uscita;
+			inizio += lunghezza;
+		}
+		this.minimo = minimo;
+		this.massimo = massimo;
+	}
+
+}
@@ -0,0 +1,144 @@
+package grafo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * evento JFR registrato a ogni generazione dell'equilibrio, riuscita o no, con
+ * l'esito, la durata delle due fasi del generatore e i contatori dei passi di
+ * correzione. Viene creato
+ * solo se l'evento  abilitato in una registrazione JFR o se  attivo il
+ * registro {@link MetricheGenerazione}, altrimenti i generatori non leggono
+ * nemmeno l'orologio
+ */
+@Name("grafo.Generazione")
+@Label("Generazione equilibrio")
+@Category("Grafo")
+@Description("Generazione dell'equilibrio di un grafo completo")
+@StackTrace(false)
+final class EventoGenerazione extends Event {
+	/**
+	 * tipo dell'evento, per sapere se qualche registrazione lo ha abilitato
+	 */
+	private static final EventType TIPO = EventType.getEventType(EventoGenerazione.class);
+	/**
+	 * esiti possibili di una generazione
+	 */
+	static final String OK = "ok";
+	static final String SCADENZA = "scadenza";
+	static final String ERRORE = "errore";
+
+	@Label("Generatore")
+	String generatore;
+
+	@Label("Pietre")
+	int n;
+
+	@Label("Potenza massima")
+	int v;
+
+	@Label("Esito")
+	@Description("ok, scadenza se il tempo concesso  finito, errore per ogni altra eccezione")
+	String esito;
+
+	@Label("Prima fase")
+	@Description("Nodi auto equilibranti o circolazione di base")
+	@Timespan(Timespan.NANOSECONDS)
+	long primaFase;
+
+	@Label("Seconda fase")
+	@Description("Nodi equilibranti in societ o rimescolamento")
+	@Timespan(Timespan.NANOSECONDS)
+	long secondaFase;
+
+	@Label("Iterazioni")
+	@Description("Giri del ciclo di correzione o triangoli provati")
+	int iterazioni;
+
+	@Label("Arretramento massimo")
+	@Description("Numero massimo di nodi di cui il ciclo di correzione  tornato indietro")
+	int arretramentoMassimo;
+
+	@Label("Archi al limite")
+	@Description("Archi portati a 1 o a v da una correzione")
+	int archiAlLimite;
+
+	@Label("Triangoli scartati")
+	@Description("Spinte del rimescolamento che avrebbero portato un arco fuori limite")
+	int triangoliScartati;
+
+	/**
+	 * istante di inizio della generazione
+	 */
+	private transient long inizio;
+	/**
+	 * istante di fine della prima fase
+	 */
+	private transient long fineFase;
+
+	/**
+	 * inizia la misura di una generazione
+	 *
+	 * @param generatore (nome del generatore)
+	 * @param grafo      (grafo da generare)
+	 * @return l'evento, null se n JFR n il registro delle metriche sono attivi
+	 */
+	static EventoGenerazione apri(String generatore, Grafo grafo) {
+		if (!TIPO.isEnabled() && MetricheGenerazione.getAttive() == null) {
+			return null;
+		}
+		EventoGenerazione evento = new EventoGenerazione();
+		evento.generatore = generatore;
+		evento.n = grafo.getN();
+		evento.v = grafo.getV();
+		evento.begin();
+		evento.inizio = System.nanoTime();
+		return evento;
+	}
+
+	/**
+	 * segna la fine della prima fase
+	 */
+	void finePrimaFase() {
+		fineFase = System.nanoTime();
+		primaFase = fineFase - inizio;
+	}
+
+	/**
+	 * chiude la misura, registra l'evento e aggiorna il registro delle metriche
+	 * se attivo. Va chiamato anche quando la generazione fallisce; se la prima
+	 * fase non  finita tutto il tempo le viene attribuito
+	 *
+	 * @param esito               (OK, SCADENZA o ERRORE)
+	 * @param iterazioni          (giri di correzione o triangoli provati)
+	 * @param arretramentoMassimo (arretramento massimo del ciclo di correzione)
+	 * @param archiAlLimite       (archi portati a 1 o a v)
+	 * @param triangoliScartati   (spinte scartate)
+	 */
+	void chiudi(String esito, int iterazioni, int arretramentoMassimo, int archiAlLimite, int triangoliScartati) {
+		long fine = System.nanoTime();
+		if (fineFase == 0) {
+			primaFase = fine - inizio;
+		} else {
+			secondaFase = fine - fineFase;
+		}
+		this.esito = esito;
+		this.iterazioni = iterazioni;
+		this.arretramentoMassimo = arretramentoMassimo;
+		this.archiAlLimite = archiAlLimite;
+		this.triangoliScartati = triangoliScartati;
+		end();
+		commit();
+		MetricheGenerazione metriche = MetricheGenerazione.getAttive();
+		if (metriche != null) {
+			metriche.registra(this);
+		}
+	}
+
+}
@@ -0,0 +1,301 @@
+package grafo;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * generatore dell'equilibrio in tempo lineare nel numero di archi: assegna a
+ * tutti gli archi una circolazione di base valida su una permutazione casuale
+ * dei nodi e poi la rimescola sommando un triangolo casuale per ogni arco. Ogni
+ * passo lascia tutti i nodi in equilibrio quindi non servono correzioni n
+ * ritorni indietro, e i valori restano sempre compresi tra 1 e v
+ */
+public class GeneratoreCircolazione implements GeneratoreEquilibrio {
+
+	@Override
+	public void genera(Grafo grafo, RandomGenerator rnd) {
+		genera(grafo, rnd, false, 0);
+	}
+
+	/**
+	 * {@inheritDoc} Anche se la generazione termina sempre, con molte pietre pu
+	 * durare pi del tempo concesso: la scadenza viene controllata per ogni nodo
+	 * della circolazione di base e per ogni riga del rimescolamento, quindi ogni
+	 * O(n) archi
+	 */
+	@Override
+	public void genera(Grafo grafo, RandomGenerator rnd, long scadenza) {
+		genera(grafo, rnd, true, scadenza);
+	}
+
+	/**
+	 * corpo della generazione
+	 *
+	 * @param grafo       (grafo completo da equilibrare)
+	 * @param rnd         (sorgente dei numeri casuali)
+	 * @param conScadenza (true se va controllata la scadenza)
+	 * @param scadenza    (istante limite secondo System.nanoTime())
+	 */
+	private void genera(Grafo grafo, RandomGenerator rnd, boolean conScadenza, long scadenza) {
+		int n = grafo.getN();
+		int v = grafo.getV();
+		if (n <= 1) {
+			return;
+		}
+		int massimo = massimoBase(n);
+		if (massimo < 0 || v < massimo) {
+			throw new IllegalArgumentException("impossibile equilibrare " + n + " pietre con potenza massima " + v);
+		}
+		MemoriaArchi tabella = grafo.getTabella();
+		EventoGenerazione evento = EventoGenerazione.apri("circolazione", grafo);
+
+		int provati = 0, scartati = 0;
+		String esito = EventoGenerazione.ERRORE;
+		try {
+			// circolazione di base sui nodi mescolati, moltiplicata per una scala casuale
+			int[] p = permutazione(n, rnd);
+			int scala = 1 + rnd.nextInt(v / massimo);
+			circolazioneBase(grafo, p, scala, conScadenza, scadenza);
+			if (evento != null) {
+				evento.finePrimaFase();
+			}
+
+			// rimescolamento: per ogni arco prova a spingere un valore casuale lungo un
+			// triangolo che lo contiene, se un arco uscirebbe dai limiti il triangolo
+			// viene lasciato com'
+			for (int i = 0; i < n; i++) {
+				if (conScadenza) {
+					ScadenzaSuperataException.controlla(scadenza, grafo);
+				}
+				for (int c = i + 1; c < n; c++) {
+					int k = rnd.nextInt(n - 2);
+					if (k >= i) {
+						k++;
+					}
+					if (k >= c) {
+						k++;
+					}
+					int delta = rnd.nextInt(2 * v + 1) - v;
+					if (delta != 0) {
+						provati++;
+						if (!spingiTriangolo(tabella, v, i, c, k, delta)) {
+							scartati++;
+						}
+					}
+				}
+			}
+			esito = EventoGenerazione.OK;
+		} catch (ScadenzaSuperataException e) {
+			esito = EventoGenerazione.SCADENZA;
+			throw e;
+		} finally {
+			// l'evento viene registrato anche quando la generazione fallisce
+			if (evento != null) {
+				evento.chiudi(esito, provati, 0, 0, scartati);
+			}
+		}
+	}
+
+	/**
+	 * ritorna il valore massimo usato dalla circolazione di base con n nodi, -1 se
+	 * con n nodi l'equilibrio non esiste
+	 *
+	 * @param n (numero di nodi)
+	 * @return il valore massimo della base
+	 */
+	static int massimoBase(int n) {
+		if (n == 2) {
+			// l'unico arco dovrebbe valere 0
+			return -1;
+		}
+		if (n % 2 == 1) {
+			return 1;
+		}
+		if (n == 4) {
+			return 3;
+		}
+		return 2;
+	}
+
+	/**
+	 * assegna a tutti gli archi la circolazione di base. Con n dispari ogni nodo
+	 * manda 1 ai (n-1)/2 nodi successivi sul cerchio, con n pari si aggiungono i
+	 * diametri e il loro ritorno passa per due archi del cerchio che valgono 2
+	 *
+	 * @param grafo       (grafo da equilibrare)
+	 * @param p           (permutazione dei nodi)
+	 * @param scala       (fattore per cui moltiplicare la base)
+	 * @param conScadenza (true se va controllata la scadenza)
+	 * @param scadenza    (istante limite secondo System.nanoTime())
+	 */
+	private static void circolazioneBase(Grafo grafo, int[] p, int scala, boolean conScadenza, long scadenza) {
+		MemoriaArchi tabella = grafo.getTabella();
+		int n = grafo.getN();
+		if (n == 4) {
+			tabella.setFlussoTra(p[0], p[1], 2 * scala);
+			tabella.setFlussoTra(p[1], p[2], scala);
+			tabella.setFlussoTra(p[2], p[3], 2 * scala);
+			tabella.setFlussoTra(p[3], p[0], 3 * scala);
+			tabella.setFlussoTra(p[0], p[2], scala);
+			tabella.setFlussoTra(p[1], p[3], scala);
+			return;
+		}
+		if (n % 2 == 1) {
+			for (int a = 0; a < n; a++) {
+				if (conScadenza) {
+					ScadenzaSuperataException.controlla(scadenza, grafo);
+				}
+				for (int d = 1; d <= (n - 1) / 2; d++) {
+					tabella.setFlussoTra(p[a], p[(a + d) % n], scala);
+				}
+			}
+			return;
+		}
+		int meta = n / 2;
+		for (int a = 0; a < n; a++) {
+			if (conScadenza) {
+				ScadenzaSuperataException.controlla(scadenza, grafo);
+			}
+			for (int d = 1; d < meta; d++) {
+				// il diametro che parte da b torna indietro passando per b+meta-1 e b-1
+				boolean ritorno = (d == 1 && (a + 1) % n < meta) || (d == meta - 1 && a >= meta);
+				tabella.setFlussoTra(p[a], p[(a + d) % n], ritorno ? 2 * scala : scala);
+			}
+		}
+		for (int a = 0; a < meta; a++) {
+			tabella.setFlussoTra(p[a], p[a + meta], scala);
+		}
+	}
+
+	/**
+	 * somma delta al flusso x -> y -> z -> x solo se tutti e tre gli archi restano
+	 * tra 1 e v in valore assoluto
+	 *
+	 * @param tabella (tabella degli archi)
+	 * @param v       (valore massimo di un arco)
+	 * @param x       (primo nodo del triangolo)
+	 * @param y       (secondo nodo del triangolo)
+	 * @param z       (terzo nodo del triangolo)
+	 * @param delta   (flusso da aggiungere)
+	 * @return true se il triangolo  stato modificato
+	 */
+	static boolean spingiTriangolo(MemoriaArchi tabella, int v, int x, int y, int z, int delta) {
+		int xy = tabella.getFlussoTra(x, y) + delta;
+		int yz = tabella.getFlussoTra(y, z) + delta;
+		int zx = tabella.getFlussoTra(z, x) + delta;
+		if (!valido(xy, v) || !valido(yz, v) || !valido(zx, v)) {
+			return false;
+		}
+		tabella.setFlussoTra(x, y, xy);
+		tabella.setFlussoTra(y, z, yz);
+		tabella.setFlussoTra(z, x, zx);
+		return true;
+	}
+
+	/**
+	 * collega il nodo k, con tutti gli archi ancora a 0, ai k nodi precedenti
+	 * lasciando il grafo in equilibrio e modificando solo O(k) archi. I nodi
+	 * precedenti vengono divisi in coppie (a, b) e per ognuna si spinge un flusso
+	 * lungo il triangolo a -> k -> b -> a, che crea i due nuovi archi e corregge
+	 * l'arco gi esistente tra a e b. Se i nodi sono dispari quello rimasto solo
+	 * viene aggiunto a uno dei triangoli gi creati con un secondo triangolo che
+	 * condivide l'arco verso k
+	 *
+	 * @param tabella (tabella degli archi, con almeno k+1 nodi)
+	 * @param v       (valore massimo di un arco)
+	 * @param k       (indice del nuovo nodo)
+	 * @param rnd     (sorgente dei numeri casuali)
+	 * @return true se il nodo  stato collegato, false se non  stato trovato un
+	 *         flusso valido e la tabella va rigenerata
+	 */
+	static boolean collegaNodo(MemoriaArchi tabella, int v, int k, RandomGenerator rnd) {
+		if (k <= 1) {
+			return k == 0;
+		}
+		int[] p = permutazione(k, rnd);
+		for (int j = 0; j + 1 < k; j += 2) {
+			if (!spingiCasuale(tabella, v, p[j], k, p[j + 1], rnd)) {
+				// valore fisso: l'arco tra a e b passa da 1 a 2 oppure scende di 1,
+				// con v >= 2  sempre valido
+				int g = tabella.getFlussoTra(p[j + 1], p[j]);
+				int delta = Math.abs(g) >= 2 ? -Integer.signum(g) : Integer.signum(g);
+				if (!spingiTriangolo(tabella, v, p[j], k, p[j + 1], delta)) {
+					return false;
+				}
+			}
+		}
+		if (k % 2 == 0) {
+			return true;
+		}
+		// il nodo rimasto si appoggia all'arco tra k e un nodo gi collegato
+		int solo = p[k - 1];
+		for (int j = 0; j + 1 < k; j++) {
+			if (spingiCasuale(tabella, v, solo, k, p[j], rnd)) {
+				return true;
+			}
+		}
+		for (int j = 0; j + 1 < k; j++) {
+			for (int delta = 1; delta <= v; delta++) {
+				if (spingiTriangolo(tabella, v, solo, k, p[j], delta)
+						|| spingiTriangolo(tabella, v, solo, k, p[j], -delta)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * prova alcuni valori casuali da spingere lungo il triangolo x -> y -> z -> x
+	 *
+	 * @param tabella (tabella degli archi)
+	 * @param v       (valore massimo di un arco)
+	 * @param x       (primo nodo del triangolo)
+	 * @param y       (secondo nodo del triangolo)
+	 * @param z       (terzo nodo del triangolo)
+	 * @param rnd     (sorgente dei numeri casuali)
+	 * @return true se il triangolo  stato modificato
+	 */
+	private static boolean spingiCasuale(MemoriaArchi tabella, int v, int x, int y, int z, RandomGenerator rnd) {
+		for (int t = 0; t < 8; t++) {
+			int delta = rnd.nextInt(2 * v + 1) - v;
+			if (delta != 0 && spingiTriangolo(tabella, v, x, y, z, delta)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * controlla che un flusso sia rappresentabile come arco, ovvero non nullo e non
+	 * oltre la potenza massima
+	 *
+	 * @param flusso (flusso con segno)
+	 * @param v      (valore massimo di un arco)
+	 * @return true se il flusso  valido
+	 */
+	static boolean valido(int flusso, int v) {
+		return flusso != 0 && flusso <= v && flusso >= -v;
+	}
+
+	/**
+	 * genera una permutazione casuale dei nodi
+	 *
+	 * @param n   (numero di nodi)
+	 * @param rnd (sorgente dei numeri casuali)
+	 * @return la permutazione
+	 */
+	private static int[] permutazione(int n, RandomGenerator rnd) {
+		int[] p = new int[n];
+		for (int i = 0; i < n; i++) {
+			p[i] = i;
+		}
+		for (int i = n - 1; i > 0; i--) {
+			int j = rnd.nextInt(i + 1);
+			int t = p[i];
+			p[i] = p[j];
+			p[j] = t;
+		}
+		return p;
+	}
+
+}
@@ -0,0 +1,35 @@
+package grafo;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * algoritmo che assegna valori e direzioni agli archi di un grafo appena creato
+ * in modo che ogni nodo sia in equilibrio
+ */
+public interface GeneratoreEquilibrio {
+
+	/**
+	 * assegna valore e direzione a tutti gli archi del grafo
+	 * 
+	 * @param grafo (grafo completo da equilibrare)
+	 * @param rnd   (sorgente dei numeri casuali, a parit di stato deve produrre
+	 *              sempre lo stesso grafo)
+	 */
+	void genera(Grafo grafo, RandomGenerator rnd);
+
+	/**
+	 * assegna valore e direzione a tutti gli archi del grafo controllando di tanto
+	 * in tanto la scadenza. I generatori che terminano sempre in un numero di passi
+	 * limitato possono ignorarla, come fa l'implementazione predefinita
+	 * 
+	 * @param grafo    (grafo completo da equilibrare)
+	 * @param rnd      (sorgente dei numeri casuali)
+	 * @param scadenza (istante limite secondo {@link System#nanoTime()})
+	 * @throws ScadenzaSuperataException se la scadenza viene superata prima della
+	 *                                   fine
+	 */
+	default void genera(Grafo grafo, RandomGenerator rnd, long scadenza) {
+		genera(grafo, rnd);
+	}
+
+}
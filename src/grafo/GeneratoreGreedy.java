@@ -0,0 +1,703 @@
+package grafo;
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+/**
+ * generatore originale dell'equilibrio: crea archi casuali nodo per nodo e
+ * corregge i debiti con l'ultimo arco di ogni nodo, tornando indietro sui nodi
+ * precedenti quando non riesce. Non garantisce n il numero di passi n
+ * l'equilibrio finale, resta disponibile per confronto con
+ * {@link GeneratoreCircolazione}
+ */
+public class GeneratoreGreedy implements GeneratoreEquilibrio {
+
+	@Override
+	public void genera(Grafo grafo, RandomGenerator rnd) {
+		genera(grafo, rnd, false, 0);
+	}
+
+	/**
+	 * {@inheritDoc} La scadenza viene controllata a ogni nodo e a ogni giro del
+	 * ciclo di correzione, che altrimenti non ha un numero massimo di passi
+	 */
+	@Override
+	public void genera(Grafo grafo, RandomGenerator rnd, long scadenza) {
+		genera(grafo, rnd, true, scadenza);
+	}
+
+	/**
+	 * corpo della generazione
+	 * 
+	 * @param grafo       (grafo completo da equilibrare)
+	 * @param rnd         (sorgente dei numeri casuali)
+	 * @param conScadenza (true se va controllata la scadenza)
+	 * @param scadenza    (istante limite secondo System.nanoTime())
+	 */
+	private void genera(Grafo grafo, RandomGenerator rnd, boolean conScadenza, long scadenza) {
+		ArrayList<Nodo> nodi = grafo.getNodi();
+		int v = grafo.getV();
+		int d = 0, ingressi = 0, uscite = 0;
+		// contatori per la telemetria, letti solo se la misura  attiva
+		EventoGenerazione evento = EventoGenerazione.apri("greedy", grafo);
+		int iterazioni = 0, arretramentoMassimo = 0, limitati = 0;
+		String esito = EventoGenerazione.ERRORE;
+		try {
+			// creazione random dei nodi auto equilibranti
+			for (int i = 0; i < Math.floor((nodi.size() - 1) / 2); i++) {
+				if (conScadenza) {
+					ScadenzaSuperataException.controlla(scadenza, grafo);
+				}
+				// creazione random archi
+				for (int c = 0; c < nodi.size() - i - 2; c++) {
+					grafo.getArco(d).setValore(rnd.nextInt(v - 1) + 1, rnd.nextBoolean());
+					d++;
+				}
+
+				// azzeramento delle variabili per il prossimo ciclo
+				uscite = 0;
+				ingressi = 0;
+				// calcolo totale ingressi e uscite
+				for (int f = 0; f < nodi.size() - 2; f++) {
+					if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getNodo1().getId() == nodi.get(i).getId()) {
+						if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+							ingressi += grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+						} else {
+							uscite += grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+						}
+					} else {
+						if (!grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+							ingressi += grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+						} else {
+							uscite += grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+						}
+					}
+				}
+				// inizio bilanciamento archi calcolati in modo randomico in funzione
+				// dell'equilibrio
+				if (ingressi - uscite == 0) {
+					if (grafo.getArco(nodi.get(i).getIndiceArco(i)).getDirezione()) {
+						grafo.getArco(nodi.get(i).getIndiceArco(i))
+								.setValore(grafo.getArco(nodi.get(i).getIndiceArco(i)).getValore() + 1, true);
+						grafo.getArco(d).setValore(1, false);
+						limitati++;
+					} else {
+						grafo.getArco(nodi.get(i).getIndiceArco(i))
+								.setValore(grafo.getArco(nodi.get(i).getIndiceArco(i)).getValore() + 1, false);
+						grafo.getArco(d).setValore(1, true);
+						limitati++;
+					}
+
+				} else if (Math.abs(ingressi - uscite) <= v) {
+					// caso in cui basti creare l'arco con un valore dato poich il valore da
+					// correggere  inferiore a v
+					if (ingressi < uscite) {
+						grafo.getArco(d).setValore(Math.abs(ingressi - uscite), true);
+
+					} else {
+						grafo.getArco(d).setValore(Math.abs(ingressi - uscite), false);
+
+					}
+					// casi in cui non basta creare solo un arco ma bisogna mettere a posto anche
+					// gli altri allora metto a posto solo gli archi creati dal nodo cos da non
+					// sballare gli altri
+				} else if (ingressi < uscite) {
+					grafo.getArco(nodi.get(i).getIndiceArco(3)).setValore(v, true);
+					limitati++;
+					// scorro tutte le uscite per compensare
+					for (int f = i; f < nodi.size() - 2; f++) {
+						if (!grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+							if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() > Math.abs(ingressi - uscite)
+									- v) {
+								// toglie i soldi alle uscite abbastanza abbienti per compensare il debito
+								grafo.getArco(nodi.get(i).getIndiceArco(f))
+										.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+												- (Math.abs(ingressi - uscite) - v), false);
+								uscite = ingressi;
+								break;
+							} else {
+								// altrimenti massacra le uscite che non hanno abbastanza soldi per pagarsi
+								// l'immunit
+								uscite -= grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() - 1;
+								grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(1, false);
+								limitati++;
+							}
+						}
+					}
+					if (uscite - ingressi != 0) {
+						// se le uscite non bastano scorro anche gli ingressi per ingrassarli
+						for (int f = i; f < nodi.size() - 2; f++) {
+							if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+								if (v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() < Math
+										.abs(ingressi - uscite) - v) {
+									// se basta ne ingrassa solo uno
+									grafo.getArco(nodi.get(i).getIndiceArco(f))
+											.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+													+ (Math.abs(ingressi - uscite) - v), true);
+									break;
+								} else {
+									// altrimenti inizia ad ingrassarne uno alla volta del tutto decrementando il
+									// debito
+									ingressi -= v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+									grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(v, false);
+									limitati++;
+								}
+							}
+						}
+					}
+					if (uscite - ingressi != 0) {
+						for (int f = i; f < nodi.size() - 2; f++) {
+							if (!grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+								if (Math.abs(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+										- (Math.abs(ingressi - uscite) - v)) <= v) {
+									// toglie i soldi alle uscite abbastanza abbienti per compensare il debito
+									grafo.getArco(nodi.get(i).getIndiceArco(f))
+											.setValore(Math.abs(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+													- (Math.abs(ingressi - uscite) - v)), true);
+									uscite = ingressi;
+									break;
+								} else {
+									// altrimenti massacra le uscite che non hanno abbastanza soldi per pagarsi
+									// l'immunit
+									uscite -= grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+									ingressi += v;
+									grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(v, true);
+									limitati++;
+								}
+							}
+						}
+					}
+					if (uscite - ingressi != 0) {
+						// se le uscite non bastano scorro anche gli ingressi per ingrassarli
+						for (int f = i; f < nodi.size() - 2; f++) {
+							if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+								if (v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() < Math
+										.abs(ingressi - uscite) - v) {
+									// se basta ne ingrassa solo uno
+									grafo.getArco(nodi.get(i).getIndiceArco(f))
+											.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+													+ (Math.abs(ingressi - uscite) - v), true);
+									break;
+								} else {
+									// altrimenti inizia ad ingrassarne uno alla volta del tutto decrementando il
+									// debito
+									ingressi -= v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+									grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(v, false);
+									limitati++;
+								}
+							}
+						}
+					}
+				} else if (ingressi > uscite) {
+					grafo.getArco(nodi.get(i).getIndiceArco(3)).setValore(v, false);
+					limitati++;
+					// scorro tutte le uscite per compensare
+					for (int f = i; f < nodi.size() - 2; f++) {
+						if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getNodo1().getId() == nodi.get(i).getId()) {
+							if (!grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+								if (v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() < Math
+										.abs(ingressi - uscite) - v) {
+									// aggiunge alle uscite per colmare il debito
+									grafo.getArco(nodi.get(i).getIndiceArco(f))
+											.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+													+ (Math.abs(ingressi - uscite) - v), false);
+									ingressi = uscite;
+									break;
+								} else {
+									// altrimenti aggiunge parte del debito degli ingressi
+									uscite -= v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+									grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(v, false);
+									limitati++;
+								}
+							}
+						} else {
+							if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+								if (v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() < Math
+										.abs(ingressi - uscite) - v) {
+									// aggiunge alle uscite per colmare il debito
+									grafo.getArco(nodi.get(i).getIndiceArco(f))
+											.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+													+ (Math.abs(ingressi - uscite) - v), true);
+									ingressi = uscite;
+									break;
+								} else {
+									// altrimenti aggiunge parte del debito degli ingressi
+									uscite -= v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+									grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(v, true);
+									limitati++;
+								}
+							}
+						}
+
+					}
+					if (ingressi - uscite != 0) {
+						// se le uscite non bastano scorro anche gli ingressi per massacrarli
+						for (int f = i; f < nodi.size() - 2; f++) {
+							if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getNodo1().getId() == nodi.get(i).getId()) {
+								if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+									if (grafo.getArco(nodi.get(i).getIndiceArco(f))
+											.getValore() > Math.abs(ingressi - uscite) - v) {
+										// se pu massacra un solo ingresso
+										grafo.getArco(nodi.get(i).getIndiceArco(f))
+												.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+														- (Math.abs(ingressi - uscite) - v), true);
+										break;
+									} else {
+										// altrimenti ne massacra un po' fino a che non  finito il debito
+										ingressi -= grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() - 1;
+										grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(1, true);
+										limitati++;
+									}
+								}
+							} else {
+								if (!grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+									if (grafo.getArco(nodi.get(i).getIndiceArco(f))
+											.getValore() > Math.abs(ingressi - uscite) - v) {
+										// se pu massacra un solo ingresso
+										grafo.getArco(nodi.get(i).getIndiceArco(f))
+												.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+														- (Math.abs(ingressi - uscite) - v), false);
+										break;
+									} else {
+										// altrimenti ne massacra un po' fino a che non  finito il debito
+										ingressi -= grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() - 1;
+										grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(1, false);
+										limitati++;
+									}
+								}
+							}
+
+						}
+					}
+				}
+
+				d++;
+			}
+
+			if (evento != null) {
+				evento.finePrimaFase();
+			}
+
+			// creazione dei nodi equilibranti in societ
+			for (int i = (int) (Math.floor((nodi.size() - 1) / 2)); i < nodi.size(); i++) {
+				boolean isCreato = false;
+				if (conScadenza) {
+					ScadenzaSuperataException.controlla(scadenza, grafo);
+				}
+				// creazione archi in modo randomico
+				for (int c = 0; c < nodi.size() - i - 2; c++) {
+					grafo.getArco(d).setValore(rnd.nextInt(v - 1) + 1, rnd.nextBoolean());
+					d++;
+				}
+				if (i != nodi.size() - 1) {
+					// azzeramento delle variabili per il prossimo ciclo
+					uscite = 0;
+					ingressi = 0;
+					// calcolo ingressi e uscite totali
+					for (int f = 0; f < nodi.size() - 2; f++) {
+						if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getNodo1().getId() == nodi.get(i).getId()) {
+							if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+								ingressi += grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+							} else {
+								uscite += grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+							}
+						} else {
+							if (!grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+								ingressi += grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+							} else {
+								uscite += grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+							}
+						}
+					}
+					// ripete il procedimento sopra indicato solo che mette in conto che potrebbe
+					// essere che l'equilibrio non potrebbe essere creato allora introduce una
+					// variabile booleana per tenere traccia del fatto che sia stato creato o no
+					// l'equilibrio
+					if (ingressi - uscite == 0) {
+						if (grafo.getArco(nodi.get(i).getIndiceArco(i)).getDirezione()) {
+							grafo.getArco(nodi.get(i).getIndiceArco(i))
+									.setValore(grafo.getArco(nodi.get(i).getIndiceArco(i)).getValore() + 1, true);
+							grafo.getArco(d).setValore(1, false);
+							limitati++;
+							isCreato = true;
+						} else {
+							grafo.getArco(nodi.get(i).getIndiceArco(i))
+									.setValore(grafo.getArco(nodi.get(i).getIndiceArco(i)).getValore() + 1, false);
+							grafo.getArco(d).setValore(1, true);
+							limitati++;
+							isCreato = true;
+						}
+					} else if (Math.abs(ingressi - uscite) <= v) {
+						// se riesce a bilanciarlo subito con l'arco da creare tutto ok
+						if (ingressi < uscite) {
+							grafo.getArco(d).setValore(Math.abs(ingressi - uscite), true);
+							isCreato = true;
+						} else {
+							grafo.getArco(d).setValore(Math.abs(ingressi - uscite), false);
+							isCreato = true;
+						}
+						// altrimenti ripete il procedimento precedente
+					} else if (ingressi < uscite) {
+						// creazione ultimo arco del nodo
+						grafo.getArco(nodi.get(i).getIndiceArco(3)).setValore(v, true);
+						limitati++;
+						// scorro tutte le uscite per compensare
+						for (int f = i; f < nodi.size() - 2; f++) {
+							if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getNodo1().getId() == nodi.get(i).getId()) {
+								if (!grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+									if (grafo.getArco(nodi.get(i).getIndiceArco(f))
+											.getValore() > Math.abs(ingressi - uscite) - v) {
+										// toglie i soldi alle uscite abbastanza abbienti per compensare il debito
+										grafo.getArco(nodi.get(i).getIndiceArco(f))
+												.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+														- (Math.abs(ingressi - uscite) - v), false);
+										isCreato = true;
+										break;
+									} else {
+										// massacra le uscite che non hanno abbastanza soldi per pagarsi l'immunit
+										uscite -= grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() - 1;
+										grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(1, false);
+										limitati++;
+									}
+								}
+							} else {
+								if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+									if (grafo.getArco(nodi.get(i).getIndiceArco(f))
+											.getValore() > Math.abs(ingressi - uscite) - v) {
+										// toglie i soldi alle uscite abbastanza abbienti per compensare il debito
+										grafo.getArco(nodi.get(i).getIndiceArco(f))
+												.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+														- (Math.abs(ingressi - uscite) - v), true);
+										isCreato = true;
+										break;
+									} else {
+										// massacra le uscite che non hanno abbastanza soldi per pagarsi l'immunit
+										uscite -= grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() - 1;
+										grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(1, true);
+										limitati++;
+									}
+								}
+							}
+
+						}
+						if (!isCreato) {
+							// se le uscite non bastano scorro anche gli ingressi per ingrassarli
+							for (int f = i; f < nodi.size() - 2; f++) {
+								if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getNodo1().getId() == nodi.get(i).getId()) {
+									if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+										if (v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() < Math
+												.abs(ingressi - uscite) - v) {
+											grafo.getArco(nodi.get(i).getIndiceArco(f))
+													.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+															+ (Math.abs(ingressi - uscite) - v), true);
+											isCreato = true;
+											break;
+										} else {
+											ingressi -= v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+											grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(v, true);
+											limitati++;
+										}
+									}
+								} else {
+									if (!grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+										if (v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() < Math
+												.abs(ingressi - uscite) - v) {
+											grafo.getArco(nodi.get(i).getIndiceArco(f))
+													.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+															+ (Math.abs(ingressi - uscite) - v), false);
+											isCreato = true;
+											break;
+										} else {
+											ingressi -= v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+											grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(v, false);
+											limitati++;
+										}
+									}
+								}
+
+							}
+						}
+					} else if (ingressi > uscite) {
+						// creazione ultimo arco del nodo
+						grafo.getArco(nodi.get(i).getIndiceArco(3)).setValore(v, false);
+						limitati++;
+						// scorro tutte le uscite per compensare
+						for (int f = i; f < nodi.size() - 2; f++) {
+							if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getNodo1().getId() == nodi.get(i).getId()) {
+								if (!grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+									if (v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() < Math
+											.abs(ingressi - uscite) - v) {
+										// aggiunge alle uscite per colmare il debito
+										grafo.getArco(nodi.get(i).getIndiceArco(f))
+												.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+														+ (Math.abs(ingressi - uscite) - v), false);
+										isCreato = true;
+										break;
+									} else {
+										// aggiunge parte del debito degli ingressi
+										uscite -= v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+										grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(v, false);
+										limitati++;
+									}
+								}
+							} else {
+								if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+									if (v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() < Math
+											.abs(ingressi - uscite) - v) {
+										// aggiunge alle uscite per colmare il debito
+										grafo.getArco(nodi.get(i).getIndiceArco(f))
+												.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+														+ (Math.abs(ingressi - uscite) - v), true);
+										isCreato = true;
+										break;
+									} else {
+										// aggiunge parte del debito degli ingressi
+										uscite -= v - grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore();
+										grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(v, true);
+										limitati++;
+									}
+								}
+							}
+
+						}
+						if (!isCreato) {
+							// se le uscite non bastano scorro anche gli ingressi per massacrarli
+							for (int f = i; f < nodi.size() - 2; f++) {
+								if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getNodo1().getId() == nodi.get(i).getId()) {
+									if (grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+										if (grafo.getArco(nodi.get(i).getIndiceArco(f))
+												.getValore() > Math.abs(ingressi - uscite) - v) {
+											grafo.getArco(nodi.get(i).getIndiceArco(f))
+													.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+															- (Math.abs(ingressi - uscite) - v), true);
+											isCreato = true;
+											break;
+										} else {
+											ingressi -= grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() - 1;
+											grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(1, true);
+											limitati++;
+										}
+									}
+								} else {
+									if (!grafo.getArco(nodi.get(i).getIndiceArco(f)).getDirezione()) {
+										if (grafo.getArco(nodi.get(i).getIndiceArco(f))
+												.getValore() > Math.abs(ingressi - uscite) - v) {
+											grafo.getArco(nodi.get(i).getIndiceArco(f))
+													.setValore(grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore()
+															- (Math.abs(ingressi - uscite) - v), false);
+											isCreato = true;
+											break;
+										} else {
+											ingressi -= grafo.getArco(nodi.get(i).getIndiceArco(f)).getValore() - 1;
+											grafo.getArco(nodi.get(i).getIndiceArco(f)).setValore(1, false);
+											limitati++;
+										}
+									}
+								}
+
+							}
+						}
+					}
+				} else {
+					// il bilancio totale del nodo  gi tenuto aggiornato dalla tabella
+					uscite = 0;
+					ingressi = grafo.getBilancio(i);
+					if (ingressi - uscite == 0) {
+						isCreato = true;
+					}
+				}
+
+				int r = 0; // livello di arretramento nei nodi ovvero quanti nodi deve retrocedere per
+							// aggiustare l'equilibrio
+				// se non  stato ancora compensato il nodo torna al nodo precedente, ovvero la
+				// variabile booleana  false
+				while (!isCreato) {
+					// bilancio totale del nodo letto dalla tabella
+					uscite = 0;
+					ingressi = grafo.getBilancio(i - r);
+					r++;// incremento la variabile per lavorare sul nodo precedente bilanciamento del
+						// nodo precedente
+					iterazioni++;
+					arretramentoMassimo = Math.max(arretramentoMassimo, r);
+					if (conScadenza) {
+						ScadenzaSuperataException.controlla(scadenza, grafo);
+					}
+					// fine bilanciamento del nodo attraverso l'arco del nodo precedente
+					if (ingressi < uscite) {
+						// controlla che sia un uscita o un entrata per il nodo in questione
+						if (grafo.getArco(nodi.get(i - r).getIndiceArco(i - r - 1)).getDirezione()) {
+							if (grafo.getArco(nodi.get(i - r).getIndiceArco(i - r - 1)).getValore()
+									- (Math.abs(ingressi - uscite) - v) > 0) {
+								// se basta il valore dell'arco mantengo il suo verso e lo correggo
+								grafo.getArco(nodi.get(i - r).getIndiceArco(i - r - 1))
+										.setValore(grafo.getArco(nodi.get(i - r).getIndiceArco(i - r - 1)).getValore()
+												- (Math.abs(ingressi - uscite) - v), true);
+							} else {
+								// altrimenti gli cambio il verso
+								grafo.getArco(nodi.get(i - r).getIndiceArco(i - r - 1)).setValore(
+										Math.abs(grafo.getArco(nodi.get(i - r).getIndiceArco(i - r - 1)).getValore()
+												- (Math.abs(ingressi - uscite) - v)),
+										false);
+							}
+						}
+					} else {
+						if (!grafo.getArco(nodi.get(i - r).getIndiceArco(i - r - 1)).getDirezione()) {
+							if (grafo.getArco(nodi.get(i - r).getIndiceArco(i - r - 1)).getValore()
+									- (Math.abs(ingressi - uscite) - v) > 0) {
+								// se basta il valore dell'arco mantengo il suo verso e lo correggo
+								grafo.getArco(nodi.get(i - r).getIndiceArco(i - r - 1))
+										.setValore(grafo.getArco(nodi.get(i - r).getIndiceArco(i - r - 1)).getValore()
+												- (Math.abs(ingressi - uscite) - v), false);
+							} else {
+								// altrimenti gli cambio il verso
+								grafo.getArco(nodi.get(i - r).getIndiceArco(i - r - 1)).setValore(
+										Math.abs(grafo.getArco(nodi.get(i - r).getIndiceArco(i - r - 1)).getValore()
+												- (Math.abs(ingressi - uscite) - v)),
+										true);
+							}
+						}
+
+					}
+
+					uscite = 0;
+					ingressi = 0;
+					// calcolo ingressi e uscite totali del nodo
+					for (int f = 0; f < nodi.size() - 2; f++) {
+						if (grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getNodo1().getId() == nodi.get(i - r).getId()) {
+							if (grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getDirezione()) {
+								ingressi += grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore();
+							} else {
+								uscite += grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore();
+							}
+						} else {
+							if (!grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getDirezione()) {
+								ingressi += grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore();
+							} else {
+								uscite += grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore();
+							}
+						}
+					}
+
+					// inizio a vedere quali degli archi devo ridimensionare, se in uscita o in
+					// ingresso e poi modifico solo gli archi creati dal nodo meno quello modificato
+					// precedentemente per creare l'equilibrio
+					if (ingressi < uscite) {
+						// scorro tutte le uscite per compensare
+						for (int f = i - r + 1; f < nodi.size() - 1; f++) {
+							if (!grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getDirezione()) {
+								if (grafo.getArco(nodi.get(i - r).getIndiceArco(f))
+										.getValore() > Math.abs(ingressi - uscite) - v) {
+									// toglie i soldi alle uscite abbastanza abbienti per compensare il debito
+									grafo.getArco(nodi.get(i - r).getIndiceArco(f))
+											.setValore(grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore()
+													- (Math.abs(ingressi - uscite) - v), false);
+									isCreato = true;
+									break;
+								} else {
+									// massacra le uscite che non hanno abbastanza soldi per pagarsi l'immunit
+									uscite -= grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore() - 1;
+									grafo.getArco(nodi.get(i - r).getIndiceArco(f)).setValore(1, false);
+									limitati++;
+								}
+							}
+						}
+						if (!isCreato) {
+							// se le uscite non bastano scorro anche gli ingressi per ingrassarli
+							for (int f = i - r + 1; f < nodi.size() - 1; f++) {
+								if (grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getNodo1().getId() == nodi.get(i - r).getId()) {
+									if (grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getDirezione()) {
+										if (v - grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore() < Math
+												.abs(ingressi - uscite) - v) {
+											grafo.getArco(nodi.get(i - r).getIndiceArco(f)).setValore(
+													grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore()
+															+ (Math.abs(ingressi - uscite) - v),
+													true);
+											isCreato = true;
+											break;
+										} else {
+											grafo.getArco(nodi.get(i - r).getIndiceArco(f)).setValore(v, false);
+											limitati++;
+											isCreato = true;
+										}
+									}
+								} else {
+									if (!grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getDirezione()) {
+										if (v - grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore() < Math
+												.abs(ingressi - uscite) - v) {
+											grafo.getArco(nodi.get(i - r).getIndiceArco(f)).setValore(
+													grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore()
+															+ (Math.abs(ingressi - uscite) - v),
+													true);
+											isCreato = true;
+											break;
+										} else {
+											grafo.getArco(nodi.get(i - r).getIndiceArco(f)).setValore(v, false);
+											limitati++;
+											isCreato = true;
+										}
+									}
+								}
+
+							}
+						}
+
+					} else if (ingressi > uscite) {
+						// scorro tutte le uscite per compensare
+						for (int f = i - r + 1; f < nodi.size() - 1; f++) {
+							if (!grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getDirezione()) {
+								if (v - grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore() < Math
+										.abs(ingressi - uscite) - v) {
+									// aggiunge alle uscite per colmare il debito
+									grafo.getArco(nodi.get(i - r).getIndiceArco(f))
+											.setValore(grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore()
+													+ (Math.abs(ingressi - uscite) - v), false);
+									isCreato = true;
+									break;
+								} else {
+									// aggiunge parte del debito degli ingressi
+									uscite += v - grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore();
+									grafo.getArco(nodi.get(i - r).getIndiceArco(f)).setValore(v, false);
+									limitati++;
+									isCreato = true;
+								}
+							}
+						}
+						if (!isCreato) {
+							// se le uscite non bastano scorro anche gli ingressi per massacrarli
+							for (int f = i - r + 1; f < nodi.size() - 1; f++) {
+								if (grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getDirezione()) {
+									if (grafo.getArco(nodi.get(i - r).getIndiceArco(f))
+											.getValore() > Math.abs(ingressi - uscite) - v) {
+										grafo.getArco(nodi.get(i - r).getIndiceArco(f))
+												.setValore(grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore()
+														- (Math.abs(ingressi - uscite) - v), true);
+										isCreato = true;
+										break;
+									} else {
+										ingressi -= grafo.getArco(nodi.get(i - r).getIndiceArco(f)).getValore() - 1;
+										grafo.getArco(nodi.get(i - r).getIndiceArco(f)).setValore(1, false);
+										limitati++;
+										isCreato = true;
+									}
+								}
+							}
+						}
+					}
+					if (uscite - ingressi == 0)
+						isCreato = true;
+				}
+				d++;
+			}
+			esito = EventoGenerazione.OK;
+		} catch (ScadenzaSuperataException e) {
+			esito = EventoGenerazione.SCADENZA;
+			throw e;
+		} finally {
+			// l'evento viene registrato anche quando la generazione fallisce
+			if (evento != null) {
+				evento.chiudi(esito, iterazioni, arretramentoMassimo, limitati, 0);
+			}
+		}
+	}
+
+}
@@ -1,16 +1,40 @@
 package grafo;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.random.RandomGenerator;
 
-public class Grafo {
+public class Grafo implements AutoCloseable {
 	/**
 	 * lista che contiene tutti i nodi appartenenti al grafo
 	 */
 	private ArrayList<Nodo> nodi = new ArrayList<Nodo>();
 	/**
-	 * mappa contenente tutti gli archi che collegano i vari nodi
+	 * tabella che associa il nome/colore di ogni nodo al suo indice nella lista,
+	 * riempita alla prima ricerca per nome. Una volta pubblicata non viene pi
+	 * modificata ma sostituita, cos si pu leggere da pi thread
 	 */
-	private Map<Integer, Arco> archi = new HashMap<>();
+	private volatile HashMap<String, Integer> indiciNodi;
+	/**
+	 * tabella primitiva contenente valori e direzioni di tutti gli archi, viene
+	 * sostituita dalla prima fotografia e da addNodo
+	 */
+	private volatile MemoriaArchi tabella;
+	/**
+	 * viste degli archi indicizzate per chiave, leggono e scrivono sulla tabella.
+	 * L'array viene allocato alla prima richiesta di un arco e ogni vista viene
+	 * creata la prima volta che viene chiesta, quindi chi lavora solo con valori e
+	 * bilanci non crea nessun oggetto Arco. I campi di Arco sono final, quindi una
+	 * vista letta da un altro thread  sempre completa; al pi due thread creano
+	 * due viste equivalenti per la stessa chiave
+	 */
+	private volatile Arco[] viste;
+	/**
+	 * vista a mappa degli archi per chi usa l'accesso per chiave
+	 */
+	private Map<Integer, Arco> archi = new VistaArchi();
 	/**
 	 * valore massimo della potenza di un arco
 	 */
@@ -19,42 +43,259 @@ public class Grafo {
 	 * numero di nodi/pietre
 	 */
 	private int n;
+	/**
+	 * seme da cui  stato generato l'equilibrio, con lo stesso seme si ottiene
+	 * sempre lo stesso grafo
+	 */
+	private long seme;
+	/**
+	 * algoritmo usato per creare l'equilibrio, riusato da regenerate
+	 */
+	private GeneratoreEquilibrio generatore = new GeneratoreCircolazione();
 	/**
 	 * nodo privo di dati utilizzato in caso di errore
 	 */
 	private Nodo vuoto = new Nodo(false);
 	/**
-	 * indice dell'arco che  stato aggiunto per ultimo nella mappa
+	 * arco immutabile privo di dati utilizzato in caso di errore, condiviso da
+	 * tutte le richieste fallite
 	 */
-	private int indiceArchiAtt = 0;
+	private Arco arcoVuoto = new Arco(vuoto, vuoto, null, -1);
 
 	/**
 	 * costruttore del grafo che autocompila il tutto creando anche l'equilibrio
+	 * con il generatore a circolazione e un seme casuale
 	 * 
 	 * @param v (potenza massima pietra)
 	 * @param n (numero delle pietre)
 	 */
 	public Grafo(int v, int n) {
+		this(v, n, new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * costruttore del grafo che genera l'equilibrio a partire dal seme dato, con lo
+	 * stesso seme il grafo  sempre lo stesso
+	 * 
+	 * @param v    (potenza massima pietra)
+	 * @param n    (numero delle pietre)
+	 * @param seme (seme della generazione)
+	 */
+	public Grafo(int v, int n, long seme) {
+		this(v, n, seme, new GeneratoreCircolazione());
+	}
+
+	/**
+	 * costruttore del grafo che prende il seme dal generatore casuale dato, ogni
+	 * thread deve usare un proprio generatore (per esempio uno split di
+	 * {@link SplittableRandom})
+	 * 
+	 * @param v   (potenza massima pietra)
+	 * @param n   (numero delle pietre)
+	 * @param rng (generatore da cui estrarre il seme)
+	 */
+	public Grafo(int v, int n, RandomGenerator rng) {
+		this(v, n, rng.nextLong());
+	}
+
+	/**
+	 * costruttore del grafo che autocompila il tutto creando l'equilibrio con il
+	 * generatore indicato e un seme casuale
+	 * 
+	 * @param v          (potenza massima pietra)
+	 * @param n          (numero delle pietre)
+	 * @param generatore (algoritmo da usare per creare l'equilibrio)
+	 */
+	public Grafo(int v, int n, GeneratoreEquilibrio generatore) {
+		this(v, n, new SplittableRandom().nextLong(), generatore);
+	}
+
+	/**
+	 * costruttore del grafo che autocompila il tutto creando l'equilibrio con il
+	 * generatore indicato a partire dal seme dato
+	 * 
+	 * @param v          (potenza massima pietra)
+	 * @param n          (numero delle pietre)
+	 * @param seme       (seme della generazione)
+	 * @param generatore (algoritmo da usare per creare l'equilibrio)
+	 */
+	public Grafo(int v, int n, long seme, GeneratoreEquilibrio generatore) {
+		this(v, seme, new MatriceFlussi(n, v));
+		this.generatore = generatore;
+		generaEq(generatore);
+	}
+
+	/**
+	 * costruttore del grafo sopra a una memoria degli archi gi esistente, non
+	 * genera l'equilibrio ma usa i valori gi presenti nella memoria
+	 * 
+	 * @param v       (potenza massima pietra)
+	 * @param seme    (seme da cui  stato generato il grafo)
+	 * @param memoria (memoria degli archi)
+	 */
+	Grafo(int v, long seme, MemoriaArchi memoria) {
 		this.v = v;
-		this.n = n;
+		this.n = memoria.getN();
+		this.seme = seme;
 
 		// creo tutti i nodi
 		for (int i = 0; i < n; i++) {
-			Nodo newNodo = new Nodo();
-			nodi.add(newNodo);
-		}
-		// creo tutti gli archi
-		for (int i = 0; i < nodi.size(); i++) {
-			for (int c = i + 1; c < nodi.size(); c++) {
-				Arco newArco = new Arco(nodi.get(i), nodi.get(c));
-				archi.put(indiceArchiAtt, newArco);
-				nodi.get(i).getIndiciArchi().add(indiceArchiAtt);
-				nodi.get(c).getIndiciArchi().add(indiceArchiAtt);
-				indiceArchiAtt++;
-			}
+			creaNodo();
 		}
+		// gli archi restano nella memoria, le viste si creano quando servono
+		tabella = memoria;
+	}
+
+	/**
+	 * crea un grafo da condividere tra pi thread, per esempio il tavolo di una
+	 * partita con pi giocatori. L'equilibrio viene generato come in
+	 * {@link #Grafo(int, int, long)} e poi copiato in una memoria in cui ogni
+	 * modifica di un arco  una sola operazione atomica e i bilanci si leggono
+	 * senza lock. Letture e modifiche degli archi possono avvenire da pi thread
+	 * insieme, mentre addNodo, addArco, rebalanceAfter, reset e regenerate vanno
+	 * ancora chiamati da un thread alla volta. Come negli altri grafi le viste
+	 * degli archi nascono solo quando vengono chieste; due thread che chiedono
+	 * insieme lo stesso arco possono ricevere due viste diverse, che leggono e
+	 * scrivono comunque lo stesso flusso
+	 * 
+	 * @param v    (potenza massima pietra)
+	 * @param n    (numero delle pietre)
+	 * @param seme (seme della generazione)
+	 * @return il grafo concorrente
+	 */
+	public static Grafo concorrente(int v, int n, long seme) {
+		Grafo grafo = new Grafo(v, n, seme);
+		return new Grafo(v, seme, MatriceFlussiConcorrente.copia(grafo.tabella));
+	}
+
+	/**
+	 * crea un grafo con gli archi e i bilanci fuori dallo heap, in buffer diretti,
+	 * per i grafi grandi che devono pesare poco sul garbage collector. La memoria
+	 * si libera subito con {@link #close()}, e anche quando la generazione
+	 * fallisce
+	 * 
+	 * @param v    (potenza massima pietra)
+	 * @param n    (numero delle pietre)
+	 * @param seme (seme della generazione)
+	 * @return il grafo
+	 */
+	public static Grafo fuoriHeap(int v, int n, long seme) {
+		MatriceFlussiEsterna memoria = MatriceFlussiEsterna.alloca(n, v, seme);
+		try {
+			Grafo grafo = new Grafo(v, seme, memoria);
+			grafo.generaEq(grafo.generatore);
+			return grafo;
+		} catch (Throwable e) {
+			memoria.chiudi();
+			throw e;
+		}
+	}
+
+	/**
+	 * crea un grafo con gli archi e i bilanci in un file mappato in memoria, che
+	 * viene creato o sovrascritto. Le modifiche agli archi finiscono nel file e il
+	 * grafo si riapre con {@link #apriFile(Path)}
+	 * 
+	 * @param file (file da creare)
+	 * @param v    (potenza massima pietra)
+	 * @param n    (numero delle pietre)
+	 * @param seme (seme della generazione)
+	 * @return il grafo
+	 * @throws IOException in caso di errore del file
+	 */
+	public static Grafo creaFile(Path file, int v, int n, long seme) throws IOException {
+		MatriceFlussiEsterna memoria = MatriceFlussiEsterna.mappa(file, n, v, seme);
+		try {
+			Grafo grafo = new Grafo(v, seme, memoria);
+			grafo.generaEq(grafo.generatore);
+			return grafo;
+		} catch (Throwable e) {
+			memoria.chiudi();
+			throw e;
+		}
+	}
 
-		generaEq();
+	/**
+	 * riapre un grafo salvato con {@link #creaFile(Path, int, int, long)} mappando
+	 * il file in memoria, senza leggere gli archi e senza rigenerarli
+	 * 
+	 * @param file (file da aprire)
+	 * @return il grafo
+	 * @throws IOException se il file non contiene un grafo o in caso di errore
+	 */
+	public static Grafo apriFile(Path file) throws IOException {
+		MatriceFlussiEsterna memoria = MatriceFlussiEsterna.apri(file);
+		return new Grafo(memoria.getV(), memoria.getSeme(), memoria);
+	}
+
+	/**
+	 * crea un grafo con il generatore a circolazione e un seme casuale entro il
+	 * tempo indicato, vedi {@link #generate(int, int, long, GeneratoreEquilibrio,
+	 * Duration)}
+	 * 
+	 * @param v      (potenza massima pietra)
+	 * @param n      (numero delle pietre)
+	 * @param budget (tempo complessivo concesso alla generazione)
+	 * @return il grafo in equilibrio
+	 * @throws IllegalArgumentException  se con n pietre e potenza massima v
+	 *                                   l'equilibrio non esiste
+	 * @throws ScadenzaSuperataException se la generazione non finisce entro il
+	 *                                   budget
+	 */
+	public static Grafo generate(int v, int n, Duration budget) {
+		return generate(v, n, new SplittableRandom().nextLong(), new GeneratoreCircolazione(), budget);
+	}
+
+	/**
+	 * crea un grafo con il generatore indicato, con il generatore a circolazione
+	 * come ripiego se supera la sua parte di tempo, fallisce o lascia il grafo
+	 * fuori equilibrio. Il budget  un limite rigido che comprende anche il
+	 * ripiego: il generatore indicato riceve met budget e la circolazione il
+	 * tempo che resta, ed entrambi controllano la scadenza mentre lavorano. La
+	 * circolazione usata come primo generatore riceve tutto il budget e non ha
+	 * ripiego. Il grafo ottenuto dal ripiego usa la circolazione anche per
+	 * {@link #regenerate(long)}
+	 * 
+	 * @param v          (potenza massima pietra)
+	 * @param n          (numero delle pietre)
+	 * @param seme       (seme della generazione)
+	 * @param generatore (algoritmo da provare per primo)
+	 * @param budget     (tempo complessivo concesso alla generazione)
+	 * @return il grafo in equilibrio
+	 * @throws IllegalArgumentException  se con n pietre e potenza massima v
+	 *                                   l'equilibrio non esiste
+	 * @throws ScadenzaSuperataException se nemmeno la circolazione finisce entro
+	 *                                   il budget
+	 */
+	public static Grafo generate(int v, int n, long seme, GeneratoreEquilibrio generatore, Duration budget) {
+		int massimo = GeneratoreCircolazione.massimoBase(n);
+		if (n > 1 && (massimo < 0 || v < massimo)) {
+			throw new IllegalArgumentException("impossibile equilibrare " + n + " pietre con potenza massima " + v);
+		}
+		long inizio = System.nanoTime();
+		long fine = inizio + budget.toNanos();
+		Grafo grafo = new Grafo(v, seme, new MatriceFlussi(n, v));
+		grafo.generatore = generatore;
+		if (generatore instanceof GeneratoreCircolazione) {
+			generatore.genera(grafo, new SplittableRandom(seme), fine);
+			return grafo;
+		}
+		// met del budget resta riservata al ripiego
+		long scadenza = inizio + budget.toNanos() / 2;
+		boolean riuscito;
+		try {
+			generatore.genera(grafo, new SplittableRandom(seme), scadenza);
+			riuscito = new EquilibrioValidator().valida(grafo);
+		} catch (RuntimeException e) {
+			// scadenza superata o generatore finito fuori dai limiti
+			riuscito = false;
+		}
+		if (!riuscito) {
+			grafo.generatore = new GeneratoreCircolazione();
+			grafo.reset();
+			grafo.generatore.genera(grafo, new SplittableRandom(seme), fine);
+		}
+		return grafo;
 	}
 
 	/**
@@ -74,10 +315,17 @@ public class Grafo {
 	 * @return il nodo trovato
 	 */
 	public Nodo getNodo(String colore) {
-		for (int i = 0; i < nodi.size(); i++) {
-			if (nodi.get(i).getColore().equals(colore)) {
-				return nodi.get(i);
+		HashMap<String, Integer> indici = indiciNodi;
+		if (indici == null) {
+			indici = new HashMap<String, Integer>();
+			for (Nodo nodo : nodi) {
+				indici.put(nodo.getColore(), nodo.getId());
 			}
+			indiciNodi = indici;
+		}
+		Integer i = indici.get(colore);
+		if (i != null) {
+			return nodi.get(i);
 		}
 		return vuoto;
 	}
@@ -113,11 +361,98 @@ public class Grafo {
 	 * @return l'arco richiesto
 	 */
 	public Arco getArco(int i) {
-		if (i < archi.size() && i >= 0) {
-			return archi.get(i);
+		if (!hasArco(i)) {
+			return arcoVuoto;
 		}
-		Arco vuoto = new Arco(this.vuoto, this.vuoto);
-		return vuoto;
+		Arco[] correnti = viste;
+		if (correnti == null) {
+			correnti = creaViste();
+		}
+		Arco arco = correnti[i];
+		if (arco == null) {
+			arco = new Arco(this, nodi.get(MemoriaArchi.nodo1(i, n)), nodi.get(MemoriaArchi.nodo2(i, n)));
+			correnti[i] = arco;
+		}
+		return arco;
+	}
+
+	/**
+	 * controlla se esiste un arco con chiave i senza creare oggetti
+	 * 
+	 * @param i (chiave di ricerca)
+	 * @return true se l'arco esiste
+	 */
+	public boolean hasArco(int i) {
+		return i < tabella.getNumeroArchi() && i >= 0;
+	}
+
+	/**
+	 * ritorna il valore dell'arco con chiave i leggendolo direttamente dalla
+	 * tabella, se l'arco non esiste ritorna il valore predefinito
+	 * 
+	 * @param i           (chiave di ricerca)
+	 * @param predefinito (valore da ritornare se l'arco non esiste)
+	 * @return il valore dell'arco o il valore predefinito
+	 */
+	public int getValoreArco(int i, int predefinito) {
+		if (hasArco(i)) {
+			return tabella.getValore(i);
+		}
+		return predefinito;
+	}
+
+	/**
+	 * ritorna la chiave dell'arco che collega i nodi di indice i e c
+	 * 
+	 * @param i (indice del primo nodo)
+	 * @param c (indice del secondo nodo)
+	 * @return la chiave dell'arco, -1 se i nodi non esistono o coincidono
+	 */
+	public int getIndiceArco(int i, int c) {
+		if (i < 0 || c < 0 || i >= n || c >= n || i == c) {
+			return -1;
+		}
+		return MemoriaArchi.indice(i, c, n);
+	}
+
+	/**
+	 * ritorna il bilancio del nodo (ingressi - uscite), nullo se il nodo  in
+	 * equilibrio o non appartiene al grafo
+	 * 
+	 * @param nodo (nodo di cui calcolare il bilancio)
+	 * @return il bilancio del nodo
+	 */
+	public int getBilancio(Nodo nodo) {
+		return getBilancio(nodo.getId());
+	}
+
+	/**
+	 * ritorna il bilancio del nodo di indice i (ingressi - uscite), nullo se il
+	 * nodo  in equilibrio o non esiste
+	 * 
+	 * @param i (indice del nodo)
+	 * @return il bilancio del nodo
+	 */
+	public int getBilancio(int i) {
+		if (i < nodi.size() && i >= 0) {
+			return tabella.getBilancio(i);
+		}
+		return 0;
+	}
+
+	/**
+	 * controlla se tutti i nodi sono in equilibrio leggendo i bilanci tenuti dalla
+	 * memoria, senza lock anche nei grafi concorrenti
+	 * 
+	 * @return true se tutti i bilanci sono nulli
+	 */
+	public boolean isEquilibrato() {
+		for (int i = 0; i < n; i++) {
+			if (tabella.getBilancio(i) != 0) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -139,680 +474,418 @@ public class Grafo {
 	}
 
 	/**
-	 * metodo che genera l'equilibrio della parita
+	 * ritorna il seme da cui  stato generato il grafo
+	 * 
+	 * @return il seme della generazione
 	 */
-	private void generaEq() {
-		Random rnd = new Random();
-		int d = 0, ingressi = 0, uscite = 0;
-		// creazione random dei nodi auto equilibranti
-		for (int i = 0; i < Math.floor((nodi.size() - 1) / 2); i++) {
-			// creazione random archi
-			for (int c = 0; c < nodi.size() - i - 2; c++) {
-				archi.get(d).setValore(rnd.nextInt(v - 1) + 1, rnd.nextBoolean());
-				d++;
-			}
-
-			// azzeramento delle variabili per il prossimo ciclo
-			uscite = 0;
-			ingressi = 0;
-			// calcolo totale ingressi e uscite
-			for (int f = 0; f < nodi.size() - 2; f++) {
-				if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getNodo1().getColore()
-						.equals(nodi.get(i).getColore())) {
-					if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-						ingressi += archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-					} else {
-						uscite += archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-					}
-				} else {
-					if (!archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-						ingressi += archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-					} else {
-						uscite += archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-					}
-				}
-			}
-			// inizio bilanciamento archi calcolati in modo randomico in funzione
-			// dell'equilibrio
-			if (ingressi - uscite == 0) {
-				if (archi.get(nodi.get(i).getIndiciArchi().get(i)).getDirezione()) {
-					archi.get(nodi.get(i).getIndiciArchi().get(i))
-							.setValore(archi.get(nodi.get(i).getIndiciArchi().get(i)).getValore() + 1, true);
-					archi.get(d).setValore(1, false);
-				} else {
-					archi.get(nodi.get(i).getIndiciArchi().get(i))
-							.setValore(archi.get(nodi.get(i).getIndiciArchi().get(i)).getValore() + 1, false);
-					archi.get(d).setValore(1, true);
-				}
-
-			} else if (Math.abs(ingressi - uscite) <= v) {
-				// caso in cui basti creare l'arco con un valore dato poich il valore da
-				// correggere  inferiore a v
-				if (ingressi < uscite) {
-					archi.get(d).setValore(Math.abs(ingressi - uscite), true);
+	public long getSeme() {
+		return seme;
+	}
 
-				} else {
-					archi.get(d).setValore(Math.abs(ingressi - uscite), false);
+	/**
+	 * ritorna la tabella degli archi per i generatori del pacchetto
+	 * 
+	 * @return la tabella degli archi
+	 */
+	MemoriaArchi getTabella() {
+		return tabella;
+	}
 
-				}
-				// casi in cui non basta creare solo un arco ma bisogna mettere a posto anche
-				// gli altri allora metto a posto solo gli archi creati dal nodo cos da non
-				// sballare gli altri
-			} else if (ingressi < uscite) {
-				archi.get(nodi.get(i).getIndiciArchi().get(3)).setValore(v, true);
-				// scorro tutte le uscite per compensare
-				for (int f = i; f < nodi.size() - 2; f++) {
-					if (!archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-						if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() > Math.abs(ingressi - uscite)
-								- v) {
-							// toglie i soldi alle uscite abbastanza abbienti per compensare il debito
-							archi.get(nodi.get(i).getIndiciArchi().get(f))
-									.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-											- (Math.abs(ingressi - uscite) - v), false);
-							uscite = ingressi;
-							break;
-						} else {
-							// altrimenti massacra le uscite che non hanno abbastanza soldi per pagarsi
-							// l'immunit
-							uscite -= archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() - 1;
-							archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(1, false);
-						}
-					}
-				}
-				if (uscite - ingressi != 0) {
-					// se le uscite non bastano scorro anche gli ingressi per ingrassarli
-					for (int f = i; f < nodi.size() - 2; f++) {
-						if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-							if (v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() < Math
-									.abs(ingressi - uscite) - v) {
-								// se basta ne ingrassa solo uno
-								archi.get(nodi.get(i).getIndiciArchi().get(f))
-										.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-												+ (Math.abs(ingressi - uscite) - v), true);
-								break;
-							} else {
-								// altrimenti inizia ad ingrassarne uno alla volta del tutto decrementando il
-								// debito
-								ingressi -= v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-								archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(v, false);
-							}
-						}
-					}
-				}
-				if (uscite - ingressi != 0) {
-					for (int f = i; f < nodi.size() - 2; f++) {
-						if (!archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-							if (Math.abs(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-									- (Math.abs(ingressi - uscite) - v)) <= v) {
-								// toglie i soldi alle uscite abbastanza abbienti per compensare il debito
-								archi.get(nodi.get(i).getIndiciArchi().get(f))
-										.setValore(Math.abs(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-												- (Math.abs(ingressi - uscite) - v)), true);
-								uscite = ingressi;
-								break;
-							} else {
-								// altrimenti massacra le uscite che non hanno abbastanza soldi per pagarsi
-								// l'immunit
-								uscite -= archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-								ingressi += v;
-								archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(v, true);
-							}
-						}
-					}
-				}
-				if (uscite - ingressi != 0) {
-					// se le uscite non bastano scorro anche gli ingressi per ingrassarli
-					for (int f = i; f < nodi.size() - 2; f++) {
-						if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-							if (v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() < Math
-									.abs(ingressi - uscite) - v) {
-								// se basta ne ingrassa solo uno
-								archi.get(nodi.get(i).getIndiciArchi().get(f))
-										.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-												+ (Math.abs(ingressi - uscite) - v), true);
-								break;
-							} else {
-								// altrimenti inizia ad ingrassarne uno alla volta del tutto decrementando il
-								// debito
-								ingressi -= v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-								archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(v, false);
-							}
-						}
-					}
-				}
-			} else if (ingressi > uscite) {
-				archi.get(nodi.get(i).getIndiciArchi().get(3)).setValore(v, false);
-				// scorro tutte le uscite per compensare
-				for (int f = i; f < nodi.size() - 2; f++) {
-					if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getNodo1().getColore()
-							.equals(nodi.get(i).getColore())) {
-						if (!archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-							if (v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() < Math
-									.abs(ingressi - uscite) - v) {
-								// aggiunge alle uscite per colmare il debito
-								archi.get(nodi.get(i).getIndiciArchi().get(f))
-										.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-												+ (Math.abs(ingressi - uscite) - v), false);
-								ingressi = uscite;
-								break;
-							} else {
-								// altrimenti aggiunge parte del debito degli ingressi
-								uscite -= v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-								archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(v, false);
-							}
-						}
-					} else {
-						if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-							if (v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() < Math
-									.abs(ingressi - uscite) - v) {
-								// aggiunge alle uscite per colmare il debito
-								archi.get(nodi.get(i).getIndiciArchi().get(f))
-										.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-												+ (Math.abs(ingressi - uscite) - v), true);
-								ingressi = uscite;
-								break;
-							} else {
-								// altrimenti aggiunge parte del debito degli ingressi
-								uscite -= v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-								archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(v, true);
-							}
-						}
-					}
+	/**
+	 * ritorna l'algoritmo che ha creato l'equilibrio del grafo
+	 * 
+	 * @return il generatore dell'equilibrio
+	 */
+	public GeneratoreEquilibrio getGeneratore() {
+		return generatore;
+	}
 
-				}
-				if (ingressi - uscite != 0) {
-					// se le uscite non bastano scorro anche gli ingressi per massacrarli
-					for (int f = i; f < nodi.size() - 2; f++) {
-						if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getNodo1().getColore()
-								.equals(nodi.get(i).getColore())) {
-							if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-								if (archi.get(nodi.get(i).getIndiciArchi().get(f))
-										.getValore() > Math.abs(ingressi - uscite) - v) {
-									// se pu massacra un solo ingresso
-									archi.get(nodi.get(i).getIndiciArchi().get(f))
-											.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-													- (Math.abs(ingressi - uscite) - v), true);
-									break;
-								} else {
-									// altrimenti ne massacra un po' fino a che non  finito il debito
-									ingressi -= archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() - 1;
-									archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(1, true);
-								}
-							}
-						} else {
-							if (!archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-								if (archi.get(nodi.get(i).getIndiciArchi().get(f))
-										.getValore() > Math.abs(ingressi - uscite) - v) {
-									// se pu massacra un solo ingresso
-									archi.get(nodi.get(i).getIndiciArchi().get(f))
-											.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-													- (Math.abs(ingressi - uscite) - v), false);
-									break;
-								} else {
-									// altrimenti ne massacra un po' fino a che non  finito il debito
-									ingressi -= archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() - 1;
-									archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(1, false);
-								}
-							}
-						}
+	/**
+	 * metodo che genera l'equilibrio della parita con il generatore scelto
+	 * 
+	 * @param generatore (algoritmo da usare per creare l'equilibrio)
+	 */
+	private void generaEq(GeneratoreEquilibrio generatore) {
+		generatore.genera(this, new SplittableRandom(seme));
+	}
 
-					}
+	/**
+	 * aggiunge una pietra al grafo gi in equilibrio e crea i suoi n archi verso
+	 * tutte le altre. L'equilibrio viene ristabilito modificando solo O(n) archi
+	 * gi esistenti invece di rigenerare tutto, e i valori casuali dipendono solo
+	 * dal seme e dal numero di nodi quindi la stessa sequenza di aggiunte produce
+	 * sempre lo stesso grafo. Se non si trova un collegamento valido l'equilibrio
+	 * viene rigenerato con il generatore a circolazione. La memoria cresce restando
+	 * dello stesso tipo e gli archi ottenuti prima dell'aggiunta restano validi,
+	 * con la nuova chiave. Ogni aggiunta copia tutti gli archi in una memoria
+	 * nuova, quindi costa O(n) e far crescere un grafo da 0 a n nodi costa
+	 * O(n). Possono crescere solo i grafi che stanno in una memoria sullo heap
+	 * scrivibile da un solo thread
+	 * 
+	 * @return il nodo aggiunto
+	 * @throws IllegalArgumentException      se con n+1 pietre e potenza massima v
+	 *                                       l'equilibrio non esiste
+	 * @throws UnsupportedOperationException se il grafo  una fotografia, viene
+	 *                                       da un archivio,  concorrente o sta
+	 *                                       fuori dallo heap
+	 */
+	public Nodo addNodo() {
+		MemoriaArchi allargata;
+		if (tabella instanceof MatriceFlussi) {
+			allargata = MatriceFlussi.allargata(tabella, v);
+		} else if (tabella instanceof MatriceFlussiCondivisa && !((MatriceFlussiCondivisa) tabella).isFotografia()) {
+			allargata = MatriceFlussiCondivisa.allargata((MatriceFlussiCondivisa) tabella);
+		} else {
+			throw new UnsupportedOperationException("la memoria di questo grafo non pu crescere");
+		}
+		int massimo = GeneratoreCircolazione.massimoBase(n + 1);
+		if (n > 0 && (massimo < 0 || v < massimo)) {
+			throw new IllegalArgumentException("impossibile equilibrare " + (n + 1) + " pietre con potenza massima " + v);
+		}
+		// le chiavi sono numerate riga per riga, quindi con un nodo in pi cambiano;
+		// le viste calcolano la chiave dai nodi, basta spostarle nel nuovo array
+		Arco[] vecchie = viste;
+		tabella = allargata;
+		n++;
+		creaNodo();
+		if (vecchie != null) {
+			Arco[] nuove = new Arco[tabella.getNumeroArchi()];
+			for (Arco arco : vecchie) {
+				if (arco != null) {
+					nuove[MemoriaArchi.indice(arco.getNodo1().getId(), arco.getNodo2().getId(), n)] = arco;
 				}
 			}
-
-			d++;
+			viste = nuove;
 		}
+		SplittableRandom rnd = new SplittableRandom(seme + n);
+		if (!GeneratoreCircolazione.collegaNodo(tabella, v, n - 1, rnd)) {
+			new GeneratoreCircolazione().genera(this, rnd);
+		}
+		return nodi.get(n - 1);
+	}
 
-		// creazione dei nodi equilibranti in societ
-		for (int i = (int) (Math.floor((nodi.size() - 1) / 2)); i < nodi.size(); i++) {
-			boolean isCreato = false;
-			// creazione archi in modo randomico
-			for (int c = 0; c < nodi.size() - i - 2; c++) {
-				archi.get(d).setValore(rnd.nextInt(v - 1) + 1, rnd.nextBoolean());
-				d++;
-			}
-			if (i != nodi.size() - 1) {
-				// azzeramento delle variabili per il prossimo ciclo
-				uscite = 0;
-				ingressi = 0;
-				// calcolo ingressi e uscite totali
-				for (int f = 0; f < nodi.size() - 2; f++) {
-					if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getNodo1().getColore()
-							.equals(nodi.get(i).getColore())) {
-						if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-							ingressi += archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-						} else {
-							uscite += archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-						}
-					} else {
-						if (!archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-							ingressi += archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-						} else {
-							uscite += archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-						}
-					}
-				}
-				// ripete il procedimento sopra indicato solo che mette in conto che potrebbe
-				// essere che l'equilibrio non potrebbe essere creato allora introduce una
-				// variabile booleana per tenere traccia del fatto che sia stato creato o no
-				// l'equilibrio
-				if (ingressi - uscite == 0) {
-					if (archi.get(nodi.get(i).getIndiciArchi().get(i)).getDirezione()) {
-						archi.get(nodi.get(i).getIndiciArchi().get(i))
-								.setValore(archi.get(nodi.get(i).getIndiciArchi().get(i)).getValore() + 1, true);
-						archi.get(d).setValore(1, false);
-						isCreato = true;
-					} else {
-						archi.get(nodi.get(i).getIndiciArchi().get(i))
-								.setValore(archi.get(nodi.get(i).getIndiciArchi().get(i)).getValore() + 1, false);
-						archi.get(d).setValore(1, true);
-						isCreato = true;
-					}
-				} else if (Math.abs(ingressi - uscite) <= v) {
-					// se riesce a bilanciarlo subito con l'arco da creare tutto ok
-					if (ingressi < uscite) {
-						archi.get(d).setValore(Math.abs(ingressi - uscite), true);
-						isCreato = true;
-					} else {
-						archi.get(d).setValore(Math.abs(ingressi - uscite), false);
-						isCreato = true;
-					}
-					// altrimenti ripete il procedimento precedente
-				} else if (ingressi < uscite) {
-					// creazione ultimo arco del nodo
-					archi.get(nodi.get(i).getIndiciArchi().get(3)).setValore(v, true);
-					// scorro tutte le uscite per compensare
-					for (int f = i; f < nodi.size() - 2; f++) {
-						if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getNodo1().getColore()
-								.equals(nodi.get(i).getColore())) {
-							if (!archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-								if (archi.get(nodi.get(i).getIndiciArchi().get(f))
-										.getValore() > Math.abs(ingressi - uscite) - v) {
-									// toglie i soldi alle uscite abbastanza abbienti per compensare il debito
-									archi.get(nodi.get(i).getIndiciArchi().get(f))
-											.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-													- (Math.abs(ingressi - uscite) - v), false);
-									isCreato = true;
-									break;
-								} else {
-									// massacra le uscite che non hanno abbastanza soldi per pagarsi l'immunit
-									uscite -= archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() - 1;
-									archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(1, false);
-								}
-							}
-						} else {
-							if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-								if (archi.get(nodi.get(i).getIndiciArchi().get(f))
-										.getValore() > Math.abs(ingressi - uscite) - v) {
-									// toglie i soldi alle uscite abbastanza abbienti per compensare il debito
-									archi.get(nodi.get(i).getIndiciArchi().get(f))
-											.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-													- (Math.abs(ingressi - uscite) - v), true);
-									isCreato = true;
-									break;
-								} else {
-									// massacra le uscite che non hanno abbastanza soldi per pagarsi l'immunit
-									uscite -= archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() - 1;
-									archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(1, true);
-								}
-							}
-						}
-
-					}
-					if (!isCreato) {
-						// se le uscite non bastano scorro anche gli ingressi per ingrassarli
-						for (int f = i; f < nodi.size() - 2; f++) {
-							if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getNodo1().getColore()
-									.equals(nodi.get(i).getColore())) {
-								if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-									if (v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() < Math
-											.abs(ingressi - uscite) - v) {
-										archi.get(nodi.get(i).getIndiciArchi().get(f))
-												.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-														+ (Math.abs(ingressi - uscite) - v), true);
-										isCreato = true;
-										break;
-									} else {
-										ingressi -= v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-										archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(v, true);
-									}
-								}
-							} else {
-								if (!archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-									if (v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() < Math
-											.abs(ingressi - uscite) - v) {
-										archi.get(nodi.get(i).getIndiciArchi().get(f))
-												.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-														+ (Math.abs(ingressi - uscite) - v), false);
-										isCreato = true;
-										break;
-									} else {
-										ingressi -= v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-										archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(v, false);
-									}
-								}
-							}
+	/**
+	 * imposta l'arco da nodo1 a nodo2 al valore indicato mantenendo l'equilibrio:
+	 * la differenza rispetto al flusso precedente viene riportata indietro lungo
+	 * un percorso nodo2 -> k -> nodo1 passando per un altro nodo k, scelto in modo
+	 * che anche i due archi del percorso restino validi (o divisa tra pi nodi)
+	 * 
+	 * @param nodo1  (nodo da cui parte l'arco)
+	 * @param nodo2  (nodo in cui arriva l'arco)
+	 * @param valore (nuovo valore dell'arco, tra 1 e v)
+	 * @return true se l'arco  stato impostato, false se i nodi non appartengono
+	 *         al grafo, il valore non  valido o nessun percorso di ritorno pu
+	 *         assorbire la differenza
+	 */
+	public boolean addArco(Nodo nodo1, Nodo nodo2, int valore) {
+		int a = nodo1.getId();
+		int b = nodo2.getId();
+		if (getNodo(a) != nodo1 || getNodo(b) != nodo2 || a == b || valore < 1 || valore > v) {
+			return false;
+		}
+		int delta = valore - tabella.getFlussoTra(a, b);
+		return delta == 0 || spingi(a, b, delta);
+	}
 
-						}
-					}
-				} else if (ingressi > uscite) {
-					// creazione ultimo arco del nodo
-					archi.get(nodi.get(i).getIndiciArchi().get(3)).setValore(v, false);
-					// scorro tutte le uscite per compensare
-					for (int f = i; f < nodi.size() - 2; f++) {
-						if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getNodo1().getColore()
-								.equals(nodi.get(i).getColore())) {
-							if (!archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-								if (v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() < Math
-										.abs(ingressi - uscite) - v) {
-									// aggiunge alle uscite per colmare il debito
-									archi.get(nodi.get(i).getIndiciArchi().get(f))
-											.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-													+ (Math.abs(ingressi - uscite) - v), false);
-									isCreato = true;
-									break;
-								} else {
-									// aggiunge parte del debito degli ingressi
-									uscite -= v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-									archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(v, false);
-								}
-							}
-						} else {
-							if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-								if (v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() < Math
-										.abs(ingressi - uscite) - v) {
-									// aggiunge alle uscite per colmare il debito
-									archi.get(nodi.get(i).getIndiciArchi().get(f))
-											.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-													+ (Math.abs(ingressi - uscite) - v), true);
-									isCreato = true;
-									break;
-								} else {
-									// aggiunge parte del debito degli ingressi
-									uscite -= v - archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-									archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(v, true);
-								}
-							}
-						}
+	/**
+	 * ristabilisce l'equilibrio dopo la modifica di un solo arco, per esempio con
+	 * {@link Arco#setValore(int, boolean)}: la differenza accumulata nei due nodi
+	 * dell'arco viene riportata indietro lungo un percorso di due archi che passa
+	 * per un terzo nodo, quindi di solito vengono modificati solo due archi. Se
+	 * nessun nodo pu assorbire tutta la differenza viene divisa tra pi percorsi.
+	 * Vengono guardati solo i bilanci dei due nodi dell'arco, gli unici che la
+	 * modifica pu aver cambiato: se il grafo era in equilibrio prima della
+	 * modifica lo  di nuovo, per controllare tutto il grafo c'
+	 * {@link #isEquilibrato()}
+	 * 
+	 * @param arcoId (chiave dell'arco modificato)
+	 * @return true se i due nodi dell'arco sono di nuovo in equilibrio, false se
+	 *         l'arco non esiste, ha un valore fuori da 1..v, la differenza dei due
+	 *         nodi non  la stessa o non pu essere riportata senza uscire dai
+	 *         limiti; in quel caso il grafo non viene modificato
+	 */
+	public boolean rebalanceAfter(int arcoId) {
+		if (!hasArco(arcoId) || !GeneratoreCircolazione.valido(tabella.getFlusso(arcoId), v)) {
+			return false;
+		}
+		int a = tabella.getNodo1(arcoId);
+		int b = tabella.getNodo2(arcoId);
+		int delta = tabella.getBilancio(b);
+		if (delta + tabella.getBilancio(a) != 0) {
+			return false;
+		}
+		return delta == 0 || riporta(b, a, delta);
+	}
 
-					}
-					if (!isCreato) {
-						// se le uscite non bastano scorro anche gli ingressi per massacrarli
-						for (int f = i; f < nodi.size() - 2; f++) {
-							if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getNodo1().getColore()
-									.equals(nodi.get(i).getColore())) {
-								if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-									if (archi.get(nodi.get(i).getIndiciArchi().get(f))
-											.getValore() > Math.abs(ingressi - uscite) - v) {
-										archi.get(nodi.get(i).getIndiciArchi().get(f))
-												.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-														- (Math.abs(ingressi - uscite) - v), true);
-										isCreato = true;
-										break;
-									} else {
-										ingressi -= archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() - 1;
-										archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(1, true);
-									}
-								}
-							} else {
-								if (!archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-									if (archi.get(nodi.get(i).getIndiciArchi().get(f))
-											.getValore() > Math.abs(ingressi - uscite) - v) {
-										archi.get(nodi.get(i).getIndiciArchi().get(f))
-												.setValore(archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore()
-														- (Math.abs(ingressi - uscite) - v), false);
-										isCreato = true;
-										break;
-									} else {
-										ingressi -= archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore() - 1;
-										archi.get(nodi.get(i).getIndiciArchi().get(f)).setValore(1, false);
-									}
-								}
-							}
+	/**
+	 * somma delta al flusso da a verso b e lo riporta indietro lungo b -> k -> a
+	 * 
+	 * @param a     (nodo da cui parte il flusso)
+	 * @param b     (nodo in cui arriva il flusso)
+	 * @param delta (flusso da aggiungere)
+	 * @return true se il flusso  stato spostato
+	 */
+	private boolean spingi(int a, int b, int delta) {
+		int nuovo = tabella.getFlussoTra(a, b) + delta;
+		if (!GeneratoreCircolazione.valido(nuovo, v) || !riporta(b, a, delta)) {
+			return false;
+		}
+		tabella.setFlussoTra(a, b, nuovo);
+		return true;
+	}
 
-						}
-					}
-				}
-			} else {
-				// azzeramento delle variabili per il prossimo ciclo
-				uscite = 0;
-				ingressi = 0;
-				// calcolo ingressi e uscite totali
-				for (int f = 0; f < nodi.size() - 1; f++) {
-					if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getNodo1().getColore()
-							.equals(nodi.get(i).getColore())) {
-						if (archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-							ingressi += archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-						} else {
-							uscite += archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-						}
-					} else {
-						if (!archi.get(nodi.get(i).getIndiciArchi().get(f)).getDirezione()) {
-							ingressi += archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-						} else {
-							uscite += archi.get(nodi.get(i).getIndiciArchi().get(f)).getValore();
-						}
-					}
-				}
-				if (ingressi - uscite == 0) {
-					isCreato = true;
+	/**
+	 * manda delta dal nodo da al nodo a lungo i percorsi da -> k -> a, provando
+	 * prima a usare un solo nodo k e poi a dividere delta in parti su pi nodi
+	 * 
+	 * @param da    (nodo da cui parte il flusso)
+	 * @param a     (nodo in cui arriva il flusso)
+	 * @param delta (flusso da mandare)
+	 * @return true se tutto il flusso  stato mandato, altrimenti nessun arco
+	 *         viene modificato
+	 */
+	private boolean riporta(int da, int a, int delta) {
+		for (int k = 0; k < n; k++) {
+			if (riportaPer(da, a, k, delta)) {
+				return true;
+			}
+		}
+		int passo = Integer.signum(delta);
+		int[] usati = new int[n];
+		int resto = delta;
+		for (int k = 0; k < n && resto != 0; k++) {
+			// la parte pi grande che il percorso per k riesce ad assorbire
+			for (int parte = resto; parte != 0; parte -= passo) {
+				if (riportaPer(da, a, k, parte)) {
+					usati[k] = parte;
+					resto -= parte;
+					break;
 				}
 			}
+		}
+		if (resto == 0) {
+			return true;
+		}
+		// annullo le parti gi mandate
+		for (int k = 0; k < n; k++) {
+			if (usati[k] != 0) {
+				tabella.setFlussoTra(da, k, tabella.getFlussoTra(da, k) - usati[k]);
+				tabella.setFlussoTra(k, a, tabella.getFlussoTra(k, a) - usati[k]);
+			}
+		}
+		return false;
+	}
 
-			int r = 0; // livello di arretramento nei nodi ovvero quanti nodi deve retrocedere per
-						// aggiustare l'equilibrio
-			// se non  stato ancora compensato il nodo torna al nodo precedente, ovvero la
-			// variabile booleana  false
-			while (!isCreato) {
-				uscite = 0;
-				ingressi = 0;
-				for (int f = 0; f < nodi.size() - 1; f++) {
-					if (archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getNodo1().getColore()
-							.equals(nodi.get(i - r).getColore())) {
-						if (archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getDirezione()) {
-							ingressi += archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore();
-						} else {
-							uscite += archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore();
-						}
-					} else {
-						if (!archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getDirezione()) {
-							ingressi += archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore();
-						} else {
-							uscite += archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore();
-						}
-					}
-
-				}
-				r++;// incremento la variabile per lavorare sul nodo precedente bilanciamento del
-					// nodo precedente
-				// fine bilanciamento del nodo attraverso l'arco del nodo precedente
-				if (ingressi < uscite) {
-					// controlla che sia un uscita o un entrata per il nodo in questione
-					if (archi.get(nodi.get(i - r).getIndiciArchi().get(i - r - 1)).getDirezione()) {
-						if (archi.get(nodi.get(i - r).getIndiciArchi().get(i - r - 1)).getValore()
-								- (Math.abs(ingressi - uscite) - v) > 0) {
-							// se basta il valore dell'arco mantengo il suo verso e lo correggo
-							archi.get(nodi.get(i - r).getIndiciArchi().get(i - r - 1))
-									.setValore(archi.get(nodi.get(i - r).getIndiciArchi().get(i - r - 1)).getValore()
-											- (Math.abs(ingressi - uscite) - v), true);
-						} else {
-							// altrimenti gli cambio il verso
-							archi.get(nodi.get(i - r).getIndiciArchi().get(i - r - 1)).setValore(
-									Math.abs(archi.get(nodi.get(i - r).getIndiciArchi().get(i - r - 1)).getValore()
-											- (Math.abs(ingressi - uscite) - v)),
-									false);
-						}
-					}
-				} else {
-					if (!archi.get(nodi.get(i - r).getIndiciArchi().get(i - r - 1)).getDirezione()) {
-						if (archi.get(nodi.get(i - r).getIndiciArchi().get(i - r - 1)).getValore()
-								- (Math.abs(ingressi - uscite) - v) > 0) {
-							// se basta il valore dell'arco mantengo il suo verso e lo correggo
-							archi.get(nodi.get(i - r).getIndiciArchi().get(i - r - 1))
-									.setValore(archi.get(nodi.get(i - r).getIndiciArchi().get(i - r - 1)).getValore()
-											- (Math.abs(ingressi - uscite) - v), false);
-						} else {
-							// altrimenti gli cambio il verso
-							archi.get(nodi.get(i - r).getIndiciArchi().get(i - r - 1)).setValore(
-									Math.abs(archi.get(nodi.get(i - r).getIndiciArchi().get(i - r - 1)).getValore()
-											- (Math.abs(ingressi - uscite) - v)),
-									true);
-						}
-					}
+	/**
+	 * manda delta lungo il percorso da -> k -> a se entrambi gli archi restano tra
+	 * 1 e v in valore assoluto
+	 * 
+	 * @param da    (nodo da cui parte il flusso)
+	 * @param a     (nodo in cui arriva il flusso)
+	 * @param k     (nodo intermedio)
+	 * @param delta (flusso da mandare)
+	 * @return true se il percorso  stato modificato
+	 */
+	private boolean riportaPer(int da, int a, int k, int delta) {
+		if (k == da || k == a) {
+			return false;
+		}
+		int primo = tabella.getFlussoTra(da, k) + delta;
+		int secondo = tabella.getFlussoTra(k, a) + delta;
+		if (!GeneratoreCircolazione.valido(primo, v) || !GeneratoreCircolazione.valido(secondo, v)) {
+			return false;
+		}
+		tabella.setFlussoTra(da, k, primo);
+		tabella.setFlussoTra(k, a, secondo);
+		return true;
+	}
 
-				}
+	/**
+	 * metodo per la creazione di un nodo che viene creato in automatico in maniera
+	 * sequenziale
+	 */
+	private void creaNodo() {
+		Nodo newNodo = new Nodo(this, nodi.size());
+		HashMap<String, Integer> indici = indiciNodi;
+		if (indici != null) {
+			// la tabella gi pubblicata non si modifica, si sostituisce con una copia
+			indici = new HashMap<String, Integer>(indici);
+			indici.put(newNodo.getColore(), nodi.size());
+			indiciNodi = indici;
+		}
+		nodi.add(newNodo);
+	}
 
-				uscite = 0;
-				ingressi = 0;
-				// calcolo ingressi e uscite totali del nodo
-				for (int f = 0; f < nodi.size() - 2; f++) {
-					if (archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getNodo1().getColore()
-							.equals(nodi.get(i - r).getColore())) {
-						if (archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getDirezione()) {
-							ingressi += archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore();
-						} else {
-							uscite += archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore();
-						}
-					} else {
-						if (!archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getDirezione()) {
-							ingressi += archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore();
-						} else {
-							uscite += archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore();
-						}
-					}
-				}
+	/**
+	 * alloca l'array delle viste sopra alla tabella corrente, ancora vuoto. Se due
+	 * thread lo chiedono insieme viene allocato una volta sola
+	 * 
+	 * @return l'array delle viste
+	 */
+	private synchronized Arco[] creaViste() {
+		Arco[] correnti = viste;
+		if (correnti == null) {
+			correnti = new Arco[tabella.getNumeroArchi()];
+			viste = correnti;
+		}
+		return correnti;
+	}
 
-				// inizio a vedere quali degli archi devo ridimensionare, se in uscita o in
-				// ingresso e poi modifico solo gli archi creati dal nodo meno quello modificato
-				// precedentemente per creare l'equilibrio
-				if (ingressi < uscite) {
-					// scorro tutte le uscite per compensare
-					for (int f = i - r + 1; f < nodi.size() - 1; f++) {
-						if (!archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getDirezione()) {
-							if (archi.get(nodi.get(i - r).getIndiciArchi().get(f))
-									.getValore() > Math.abs(ingressi - uscite) - v) {
-								// toglie i soldi alle uscite abbastanza abbienti per compensare il debito
-								archi.get(nodi.get(i - r).getIndiciArchi().get(f))
-										.setValore(archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore()
-												- (Math.abs(ingressi - uscite) - v), false);
-								isCreato = true;
-								break;
-							} else {
-								// massacra le uscite che non hanno abbastanza soldi per pagarsi l'immunit
-								uscite -= archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore() - 1;
-								archi.get(nodi.get(i - r).getIndiciArchi().get(f)).setValore(1, false);
-							}
-						}
-					}
-					if (!isCreato) {
-						// se le uscite non bastano scorro anche gli ingressi per ingrassarli
-						for (int f = i - r + 1; f < nodi.size() - 1; f++) {
-							if (archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getNodo1().getColore()
-									.equals(nodi.get(i - r).getColore())) {
-								if (archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getDirezione()) {
-									if (v - archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore() < Math
-											.abs(ingressi - uscite) - v) {
-										archi.get(nodi.get(i - r).getIndiciArchi().get(f)).setValore(
-												archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore()
-														+ (Math.abs(ingressi - uscite) - v),
-												true);
-										isCreato = true;
-										break;
-									} else {
-										archi.get(nodi.get(i - r).getIndiciArchi().get(f)).setValore(v, false);
-										isCreato = true;
-									}
-								}
-							} else {
-								if (!archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getDirezione()) {
-									if (v - archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore() < Math
-											.abs(ingressi - uscite) - v) {
-										archi.get(nodi.get(i - r).getIndiciArchi().get(f)).setValore(
-												archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore()
-														+ (Math.abs(ingressi - uscite) - v),
-												true);
-										isCreato = true;
-										break;
-									} else {
-										archi.get(nodi.get(i - r).getIndiciArchi().get(f)).setValore(v, false);
-										isCreato = true;
-									}
-								}
-							}
+	/**
+	 * resetta tutto il grafo portando a 0 il flusso di tutti gli archi, nodi, viste
+	 * e memoria degli archi restano gli stessi quindi non viene allocato nulla. Il
+	 * grafo resta senza equilibrio finch non viene chiamato
+	 * {@link #regenerate(long)}
+	 * 
+	 * @throws UnsupportedOperationException se il grafo  di sola lettura
+	 */
+	public void reset() {
+		tabella.azzera();
+	}
 
-						}
-					}
-
-				} else if (ingressi > uscite) {
-					// scorro tutte le uscite per compensare
-					for (int f = i - r + 1; f < nodi.size() - 1; f++) {
-						if (!archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getDirezione()) {
-							if (v - archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore() < Math
-									.abs(ingressi - uscite) - v) {
-								// aggiunge alle uscite per colmare il debito
-								archi.get(nodi.get(i - r).getIndiciArchi().get(f))
-										.setValore(archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore()
-												+ (Math.abs(ingressi - uscite) - v), false);
-								isCreato = true;
-								break;
-							} else {
-								// aggiunge parte del debito degli ingressi
-								uscite += v - archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore();
-								archi.get(nodi.get(i - r).getIndiciArchi().get(f)).setValore(v, false);
-								isCreato = true;
-							}
-						}
-					}
-					if (!isCreato) {
-						// se le uscite non bastano scorro anche gli ingressi per massacrarli
-						for (int f = i - r + 1; f < nodi.size() - 1; f++) {
-							if (archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getDirezione()) {
-								if (archi.get(nodi.get(i - r).getIndiciArchi().get(f))
-										.getValore() > Math.abs(ingressi - uscite) - v) {
-									archi.get(nodi.get(i - r).getIndiciArchi().get(f))
-											.setValore(archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore()
-													- (Math.abs(ingressi - uscite) - v), true);
-									isCreato = true;
-									break;
-								} else {
-									ingressi -= archi.get(nodi.get(i - r).getIndiciArchi().get(f)).getValore() - 1;
-									archi.get(nodi.get(i - r).getIndiciArchi().get(f)).setValore(1, false);
-									isCreato = true;
-								}
-							}
-						}
-					}
-				}
-				if (uscite - ingressi == 0)
-					isCreato = true;
-			}
-			d++;
-		}
+	/**
+	 * rigenera l'equilibrio a partire dal nuovo seme riusando la memoria del
+	 * grafo, il risultato  lo stesso di un nuovo grafo costruito con gli stessi
+	 * v, n, seme e generatore
+	 * 
+	 * @param seme (seme della nuova generazione)
+	 * @throws UnsupportedOperationException se il grafo  di sola lettura
+	 */
+	public void regenerate(long seme) {
+		reset();
+		this.seme = seme;
+		generaEq(generatore);
 	}
 
 	/**
-	 * metodo per l'aggiunta di un arco
+	 * rigenera l'equilibrio come {@link #regenerate(long)} ma con il generatore
+	 * indicato, che diventa quello del grafo
 	 * 
-	 * @param nodo1 (primo nodo appartenente all'arco)
-	 * @param nodo2 (secondo nodo appartenente all'arco)
-	 * @param v     (valore dell'arco)
+	 * @param seme       (seme della nuova generazione)
+	 * @param generatore (algoritmo da usare per creare l'equilibrio)
 	 */
-	private void addArco(Nodo nodo1, Nodo nodo2, int v) {
+	void regenerate(long seme, GeneratoreEquilibrio generatore) {
+		this.generatore = generatore;
+		regenerate(seme);
+	}
 
+	/**
+	 * ritorna se il grafo sta in una memoria sullo heap scrivibile, quindi si pu
+	 * azzerare e rigenerare senza perdere memoria: non lo sono le fotografie, i
+	 * grafi letti da un archivio e quelli fuori dallo heap o su file
+	 * 
+	 * @return true se il grafo si pu riciclare
+	 */
+	boolean isRiciclabile() {
+		if (tabella instanceof MatriceFlussiCondivisa) {
+			return !((MatriceFlussiCondivisa) tabella).isFotografia();
+		}
+		return tabella instanceof MatriceFlussi || tabella instanceof MatriceFlussiConcorrente;
 	}
 
 	/**
-	 * metodo per l'aggiunta di un nodo che viene creato in automatico in mniera
-	 * sequenziale
+	 * ritorna una fotografia immutabile del grafo, che si pu passare ad altri
+	 * thread e leggere mentre questo grafo continua a essere modificato. Nei
+	 * grafi normali la fotografia va scattata dal thread che possiede il grafo,
+	 * come ogni sua modifica, perch le scritture sui blocchi non sono
+	 * sincronizzate. La prima fotografia sposta gli archi in una memoria a blocchi
+	 * condivisibili copiandoli tutti, in tempo lineare nel numero di archi, e le
+	 * viste gi ottenute restano valide; da l in poi fotografie e grafo
+	 * condividono i blocchi, ogni fotografia costa O(archi / BLOCCO + n) e il
+	 * grafo copia solo i blocchi in cui scrive. I grafi concorrenti sono gi
+	 * divisi in blocchi: la fotografia ferma le scritture solo il tempo di segnare
+	 * i blocchi e leggere i bilanci, e si pu scattare da qualsiasi thread. I
+	 * grafi fuori dallo heap non vengono spostati e la fotografia  una copia
+	 * sullo heap dei loro flussi, in tempo lineare nel numero di archi, da
+	 * scattare dal thread che li possiede. Le modifiche alla fotografia lanciano
+	 * UnsupportedOperationException
+	 * 
+	 * @return la fotografia del grafo
 	 */
-	private void addNodo() {
+	public Grafo snapshot() {
+		MemoriaArchi fotografia;
+		if (tabella instanceof MemoriaArchiMappata) {
+			fotografia = tabella;
+		} else if (tabella instanceof MatriceFlussiConcorrente) {
+			fotografia = ((MatriceFlussiConcorrente) tabella).fotografia();
+		} else if (tabella instanceof MatriceFlussiEsterna) {
+			fotografia = MatriceFlussiCondivisa.copia(tabella).fotografia();
+		} else {
+			if (!(tabella instanceof MatriceFlussiCondivisa)) {
+				tabella = MatriceFlussiCondivisa.copia(tabella);
+			}
+			fotografia = ((MatriceFlussiCondivisa) tabella).fotografia();
+		}
+		Grafo grafo = new Grafo(v, seme, fotografia);
+		grafo.generatore = generatore;
+		return grafo;
+	}
 
+	/**
+	 * libera subito la memoria fuori dallo heap dei grafi creati con
+	 * {@link #fuoriHeap(int, int, long)} o mappati su file, dopo la chiusura ogni
+	 * accesso agli archi lancia IllegalStateException. Va chiamato da chi
+	 * possiede il grafo quando nessun altro thread lo sta usando. Per gli altri
+	 * grafi non fa nulla
+	 */
+	@Override
+	public void close() {
+		if (tabella instanceof MatriceFlussiEsterna) {
+			((MatriceFlussiEsterna) tabella).chiudi();
+		}
 	}
 
 	/**
-	 * resetta tutto il grafo
+	 * vista a mappa degli archi, non contiene dati propri ma chiede gli archi al
+	 * grafo, quindi le viste vengono create solo per le chiavi lette
 	 */
-	public void reset() {
+	private class VistaArchi extends AbstractMap<Integer, Arco> {
+
+		@Override
+		public int size() {
+			return tabella.getNumeroArchi();
+		}
+
+		@Override
+		public boolean containsKey(Object chiave) {
+			return chiave instanceof Integer && hasArco((Integer) chiave);
+		}
 
+		@Override
+		public Arco get(Object chiave) {
+			return containsKey(chiave) ? getArco((Integer) chiave) : null;
+		}
+
+		@Override
+		public Set<Entry<Integer, Arco>> entrySet() {
+			return new AbstractSet<Entry<Integer, Arco>>() {
+
+				@Override
+				public int size() {
+					return tabella.getNumeroArchi();
+				}
+
+				@Override
+				public Iterator<Entry<Integer, Arco>> iterator() {
+					return new Iterator<Entry<Integer, Arco>>() {
+						private int prossimo = 0;
+
+						@Override
+						public boolean hasNext() {
+							return prossimo < tabella.getNumeroArchi();
+						}
+
+						@Override
+						public Entry<Integer, Arco> next() {
+							if (prossimo >= tabella.getNumeroArchi()) {
+								throw new NoSuchElementException();
+							}
+							Arco arco = getArco(prossimo);
+							return new SimpleImmutableEntry<>(prossimo++, arco);
+						}
+					};
+				}
+			};
+		}
 	}
 }
@@ -0,0 +1,83 @@
+package grafo;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * generatore in blocco di grafi indipendenti con gli stessi parametri, i grafi
+ * vengono costruiti in parallelo sul pool indicato. Ogni grafo ha un proprio
+ * seme estratto in sequenza dal seme del blocco, quindi lo stesso seme produce
+ * sempre gli stessi grafi nello stesso ordine indipendentemente dai thread
+ */
+public class GrafoBatchGenerator {
+	/**
+	 * valore massimo della potenza di un arco
+	 */
+	private int v;
+	/**
+	 * numero di nodi/pietre di ogni grafo
+	 */
+	private int n;
+	/**
+	 * algoritmo usato per creare l'equilibrio, deve essere senza stato
+	 */
+	private GeneratoreEquilibrio generatore;
+	/**
+	 * pool su cui vengono costruiti i grafi
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * costruttore del generatore che usa il generatore a circolazione e il pool
+	 * comune
+	 *
+	 * @param v (potenza massima pietra)
+	 * @param n (numero delle pietre)
+	 */
+	public GrafoBatchGenerator(int v, int n) {
+		this(v, n, new GeneratoreCircolazione(), ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * costruttore del generatore con algoritmo e pool scelti
+	 *
+	 * @param v          (potenza massima pietra)
+	 * @param n          (numero delle pietre)
+	 * @param generatore (algoritmo da usare per creare l'equilibrio)
+	 * @param pool       (pool su cui costruire i grafi)
+	 */
+	public GrafoBatchGenerator(int v, int n, GeneratoreEquilibrio generatore, ForkJoinPool pool) {
+		this.v = v;
+		this.n = n;
+		this.generatore = generatore;
+		this.pool = pool;
+	}
+
+	/**
+	 * genera quanti grafi a partire da un seme casuale
+	 *
+	 * @param quanti (numero di grafi da generare)
+	 * @return la lista dei grafi generati
+	 */
+	public List<Grafo> genera(int quanti) {
+		return genera(quanti, new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * genera quanti grafi a partire dal seme dato, il grafo k ha come seme il k-esimo
+	 * numero estratto da un SplittableRandom inizializzato con il seme del blocco
+	 *
+	 * @param quanti (numero di grafi da generare)
+	 * @param seme   (seme del blocco)
+	 * @return la lista dei grafi generati, nello stesso ordine dei semi
+	 */
+	public List<Grafo> genera(int quanti, long seme) {
+		long[] semi = new SplittableRandom(seme).longs(quanti).toArray();
+		// lo stream parallelo lanciato da un task del pool usa i thread di quel pool
+		return pool.submit(() -> IntStream.range(0, quanti).parallel()
+				.mapToObj(k -> new Grafo(v, n, semi[k], generatore)).collect(Collectors.toList())).join();
+	}
+
+}
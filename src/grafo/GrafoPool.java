@@ -0,0 +1,114 @@
+package grafo;
+
+import java.util.*;
+
+/**
+ * deposito limitato di grafi gi allocati divisi per forma (v, n): chi chiede un
+ * grafo riceve se possibile un grafo restituito in precedenza e rigenerato con
+ * il nuovo seme, altrimenti uno nuovo. Pu essere usato da pi thread
+ */
+public class GrafoPool {
+	/**
+	 * numero massimo di grafi conservati per ogni forma
+	 */
+	private int capacita;
+	/**
+	 * grafi liberi per ogni forma, la chiave unisce v e n
+	 */
+	private HashMap<Long, ArrayDeque<Grafo>> liberi = new HashMap<Long, ArrayDeque<Grafo>>();
+
+	/**
+	 * costruttore del deposito
+	 *
+	 * @param capacita (numero massimo di grafi conservati per ogni forma)
+	 */
+	public GrafoPool(int capacita) {
+		if (capacita < 0) {
+			throw new IllegalArgumentException("capacit negativa: " + capacita);
+		}
+		this.capacita = capacita;
+	}
+
+	/**
+	 * ritorna un grafo in equilibrio con un seme casuale
+	 *
+	 * @param v (potenza massima pietra)
+	 * @param n (numero delle pietre)
+	 * @return il grafo
+	 */
+	public Grafo prendi(int v, int n) {
+		return prendi(v, n, new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * ritorna un grafo in equilibrio generato dal seme dato, uguale a new Grafo(v,
+	 * n, seme): i grafi riciclati vengono rigenerati sempre con il generatore a
+	 * circolazione, qualunque fosse quello con cui erano stati creati
+	 *
+	 * @param v    (potenza massima pietra)
+	 * @param n    (numero delle pietre)
+	 * @param seme (seme della generazione)
+	 * @return il grafo
+	 */
+	public Grafo prendi(int v, int n, long seme) {
+		Grafo grafo;
+		synchronized (this) {
+			ArrayDeque<Grafo> coda = liberi.get(chiave(v, n));
+			grafo = coda == null ? null : coda.pollFirst();
+		}
+		if (grafo == null) {
+			return new Grafo(v, n, seme);
+		}
+		grafo.regenerate(seme, new GeneratoreCircolazione());
+		return grafo;
+	}
+
+	/**
+	 * restituisce un grafo che non serve pi, se per la sua forma il deposito 
+	 * pieno il grafo viene scartato. Il grafo non deve pi essere usato da chi lo
+	 * restituisce. Si accettano solo grafi sullo heap scrivibili: fotografie,
+	 * grafi letti da un archivio e grafi fuori dallo heap vengono rifiutati prima
+	 * di toccarli, questi ultimi vanno chiusi da chi li ha creati
+	 *
+	 * @param grafo (grafo da restituire)
+	 * @throws IllegalArgumentException se il grafo non si pu riciclare
+	 */
+	public void restituisci(Grafo grafo) {
+		if (!grafo.isRiciclabile()) {
+			throw new IllegalArgumentException("il deposito accetta solo grafi sullo heap scrivibili");
+		}
+		// azzerato subito, cos non trattiene valori di una partita finita
+		grafo.reset();
+		synchronized (this) {
+			ArrayDeque<Grafo> coda = liberi.computeIfAbsent(chiave(grafo.getV(), grafo.getN()),
+					k -> new ArrayDeque<Grafo>());
+			if (coda.size() < capacita) {
+				coda.addFirst(grafo);
+			}
+		}
+	}
+
+	/**
+	 * ritorna il numero di grafi liberi per la forma indicata
+	 *
+	 * @param v (potenza massima pietra)
+	 * @param n (numero delle pietre)
+	 * @return il numero di grafi liberi
+	 */
+	public synchronized int getLiberi(int v, int n) {
+		ArrayDeque<Grafo> coda = liberi.get(chiave(v, n));
+		return coda == null ? 0 : coda.size();
+	}
+
+	/**
+	 * unisce v e n nella chiave della forma
+	 *
+	 * @param v (potenza massima pietra)
+	 * @param n (numero delle pietre)
+	 * @return la chiave
+	 */
+	private static long chiave(int v, int n) {
+		return ((long) v << 32) | (n & 0xFFFFFFFFL);
+	}
+
+}
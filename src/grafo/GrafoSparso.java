@@ -0,0 +1,428 @@
+package grafo;
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+/**
+ * grafo sparso di grado fisso per un numero molto grande di pietre: ogni nodo ha
+ * esattamente grado archi invece di n-1, quindi memoria e tempo crescono in modo
+ * lineare con n. Gli archi sono l'unione di grado/2 strati disgiunti: il primo 
+ * un ciclo hamiltoniano casuale, che rende il grafo connesso, gli altri dividono
+ * una nuova permutazione casuale dei nodi in cicli corti. Ogni ciclo riceve un
+ * proprio valore tra 1 e v lungo il suo verso, quindi ogni nodo riceve da ogni
+ * ciclo quanto manda e il grafo  in equilibrio per costruzione. Le adiacenze
+ * sono memorizzate in formato compresso (CSR) e non vengono creati oggetti per
+ * nodi e archi, che si leggono per indice
+ */
+public class GrafoSparso {
+	/**
+	 * lunghezza massima dei cicli degli strati dopo il primo
+	 */
+	private static final int CICLO_MASSIMO = 32;
+	/**
+	 * tentativi di scambio per evitare un arco gi presente e tentativi per ogni
+	 * strato
+	 */
+	private static final int TENTATIVI = 100;
+
+	/**
+	 * valore massimo della potenza di un arco
+	 */
+	private int v;
+	/**
+	 * numero di nodi/pietre
+	 */
+	private int n;
+	/**
+	 * numero di archi di ogni nodo
+	 */
+	private int grado;
+	/**
+	 * seme da cui  stato generato il grafo
+	 */
+	private long seme;
+	/**
+	 * primo e secondo nodo di ogni arco
+	 */
+	private int[] nodi1;
+	private int[] nodi2;
+	/**
+	 * flusso con segno di ogni arco, positivo se va da nodo1 a nodo2
+	 */
+	private int[] flussi;
+	/**
+	 * posizione dei primi vicini di ogni nodo in vicini e archi, n+1 elementi
+	 */
+	private int[] inizio;
+	/**
+	 * vicini di tutti i nodi uno dopo l'altro
+	 */
+	private int[] vicini;
+	/**
+	 * chiave dell'arco verso ogni vicino, parallelo a vicini
+	 */
+	private int[] archi;
+
+	/**
+	 * costruttore del grafo sparso con un seme casuale
+	 *
+	 * @param v     (potenza massima pietra)
+	 * @param n     (numero delle pietre)
+	 * @param grado (numero di archi di ogni pietra, pari e al massimo n/3)
+	 */
+	public GrafoSparso(int v, int n, int grado) {
+		this(v, n, grado, new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * costruttore del grafo sparso a partire dal seme dato, con lo stesso seme il
+	 * grafo  sempre lo stesso
+	 *
+	 * @param v     (potenza massima pietra)
+	 * @param n     (numero delle pietre)
+	 * @param grado (numero di archi di ogni pietra, pari e al massimo n/3)
+	 * @param seme  (seme della generazione)
+	 * @throws IllegalArgumentException se il grado  dispari, supera n/3 o non si
+	 *                                  riescono a trovare strati disgiunti
+	 */
+	public GrafoSparso(int v, int n, int grado, long seme) {
+		// oltre n/3 gli strati disgiunti diventano difficili da trovare a caso e
+		// conviene comunque il grafo completo
+		if (v < 1 || n < 3 || grado < 2 || grado % 2 != 0 || grado > Math.max(2, n / 3)) {
+			throw new IllegalArgumentException(
+					"grafo sparso impossibile con " + n + " pietre, grado " + grado + " e potenza massima " + v);
+		}
+		this.v = v;
+		this.n = n;
+		this.grado = grado;
+		this.seme = seme;
+		int numeroArchi = (int) ((long) n * grado / 2);
+		nodi1 = new int[numeroArchi];
+		nodi2 = new int[numeroArchi];
+		flussi = new int[numeroArchi];
+		if (!genera(new SplittableRandom(seme))) {
+			throw new IllegalArgumentException("impossibile trovare " + grado / 2 + " strati disgiunti con " + n + " pietre");
+		}
+		comprimi();
+	}
+
+	/**
+	 * crea gli strati di cicli e assegna il flusso di ogni ciclo, se uno strato
+	 * resta con un ciclo senza archi liberi viene rifatto da capo con una nuova
+	 * permutazione
+	 *
+	 * @param rnd (sorgente dei numeri casuali)
+	 * @return false se uno strato non  riuscito dopo tutti i tentativi
+	 */
+	private boolean genera(RandomGenerator rnd) {
+		// adiacenze provvisorie, grado posti per nodo, per scartare gli archi doppi
+		int[] provvisori = new int[n * grado];
+		int[] conteggi = new int[n];
+		int[] p = new int[n];
+		int a = 0;
+		for (int strato = 0; strato < grado / 2; strato++) {
+			int[] conteggiPrima = conteggi.clone();
+			int aPrima = a;
+			boolean riuscito = false;
+			for (int t = 0; t < TENTATIVI && !riuscito; t++) {
+				System.arraycopy(conteggiPrima, 0, conteggi, 0, n);
+				a = aPrima;
+				riuscito = strato(strato, p, a, provvisori, conteggi, rnd);
+			}
+			if (!riuscito) {
+				return false;
+			}
+			a += n;
+		}
+		return true;
+	}
+
+	/**
+	 * crea uno strato: mescola i nodi, li divide in cicli e assegna a ogni ciclo un
+	 * valore casuale
+	 *
+	 * @param strato     (numero dello strato, il primo  un solo ciclo)
+	 * @param p          (spazio per la permutazione)
+	 * @param a          (chiave del primo arco dello strato)
+	 * @param provvisori (vicini gi assegnati a ogni nodo)
+	 * @param conteggi   (numero di vicini gi assegnati a ogni nodo)
+	 * @param rnd        (sorgente dei numeri casuali)
+	 * @return false se un ciclo non ha trovato archi liberi
+	 */
+	private boolean strato(int strato, int[] p, int a, int[] provvisori, int[] conteggi, RandomGenerator rnd) {
+		for (int i = 0; i < n; i++) {
+			p[i] = i;
+		}
+		for (int i = n - 1; i > 0; i--) {
+			scambia(p, i, rnd.nextInt(i + 1));
+		}
+		int s = 0;
+		while (s < n) {
+			int resto = n - s;
+			int lunghezza;
+			if (strato == 0 || resto < 6) {
+				lunghezza = resto;
+			} else {
+				// lascia sempre almeno 3 nodi per il ciclo successivo
+				lunghezza = 3 + rnd.nextInt(Math.min(CICLO_MASSIMO, resto - 3) - 2);
+			}
+			if (!sistemaCiclo(p, s, lunghezza, provvisori, conteggi, rnd)) {
+				return false;
+			}
+			int valore = 1 + rnd.nextInt(v);
+			for (int j = s; j < s + lunghezza; j++) {
+				int x = p[j];
+				int y = p[j + 1 < s + lunghezza ? j + 1 : s];
+				nodi1[a] = x;
+				nodi2[a] = y;
+				flussi[a] = valore;
+				a++;
+				provvisori[x * grado + conteggi[x]++] = y;
+				provvisori[y * grado + conteggi[y]++] = x;
+			}
+			s += lunghezza;
+		}
+		return true;
+	}
+
+	/**
+	 * scambia i nodi del ciclo p[s..s+lunghezza) con quelli successivi della
+	 * permutazione finch nessun arco del ciclo esiste gi in uno strato
+	 * precedente
+	 *
+	 * @param p          (permutazione dello strato)
+	 * @param s          (inizio del ciclo)
+	 * @param lunghezza  (numero di nodi del ciclo)
+	 * @param provvisori (vicini gi assegnati a ogni nodo)
+	 * @param conteggi   (numero di vicini gi assegnati a ogni nodo)
+	 * @param rnd        (sorgente dei numeri casuali)
+	 * @return false se dopo tutti i tentativi resta un arco doppio
+	 */
+	private boolean sistemaCiclo(int[] p, int s, int lunghezza, int[] provvisori, int[] conteggi,
+			RandomGenerator rnd) {
+		for (int t = 0; t < TENTATIVI; t++) {
+			int doppio = -1;
+			for (int j = s; j < s + lunghezza && doppio < 0; j++) {
+				int prossimo = j + 1 < s + lunghezza ? j + 1 : s;
+				if (vicino(p[j], p[prossimo], provvisori, conteggi)) {
+					// il primo nodo del ciclo resta fermo, si sposta l'altro
+					doppio = prossimo != s ? prossimo : j;
+				}
+			}
+			if (doppio < 0) {
+				return true;
+			}
+			scambia(p, doppio, s + 1 + rnd.nextInt(n - s - 1));
+		}
+		return false;
+	}
+
+	/**
+	 * controlla se il nodo y  gi vicino del nodo x
+	 *
+	 * @param x          (primo nodo)
+	 * @param y          (secondo nodo)
+	 * @param provvisori (vicini gi assegnati a ogni nodo)
+	 * @param conteggi   (numero di vicini gi assegnati a ogni nodo)
+	 * @return true se l'arco esiste gi
+	 */
+	private boolean vicino(int x, int y, int[] provvisori, int[] conteggi) {
+		for (int k = 0; k < conteggi[x]; k++) {
+			if (provvisori[x * grado + k] == y) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * costruisce le adiacenze compresse a partire dall'elenco degli archi
+	 */
+	private void comprimi() {
+		inizio = new int[n + 1];
+		for (int a = 0; a < nodi1.length; a++) {
+			inizio[nodi1[a] + 1]++;
+			inizio[nodi2[a] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			inizio[i + 1] += inizio[i];
+		}
+		vicini = new int[inizio[n]];
+		archi = new int[inizio[n]];
+		int[] pos = Arrays.copyOf(inizio, n);
+		for (int a = 0; a < nodi1.length; a++) {
+			vicini[pos[nodi1[a]]] = nodi2[a];
+			archi[pos[nodi1[a]]++] = a;
+			vicini[pos[nodi2[a]]] = nodi1[a];
+			archi[pos[nodi2[a]]++] = a;
+		}
+	}
+
+	/**
+	 * scambia due elementi di un array
+	 *
+	 * @param p (array)
+	 * @param i (primo indice)
+	 * @param j (secondo indice)
+	 */
+	private static void scambia(int[] p, int i, int j) {
+		int t = p[i];
+		p[i] = p[j];
+		p[j] = t;
+	}
+
+	/**
+	 * ritorna il valore di potenza massima delle pietre
+	 *
+	 * @return il valore di potenza massima delle pietre
+	 */
+	public int getV() {
+		return v;
+	}
+
+	/**
+	 * ritorna il numero di nodi/pietre
+	 *
+	 * @return il numero di nodi/pietre
+	 */
+	public int getN() {
+		return n;
+	}
+
+	/**
+	 * ritorna il numero di archi di ogni nodo
+	 *
+	 * @return il grado del grafo
+	 */
+	public int getGrado() {
+		return grado;
+	}
+
+	/**
+	 * ritorna il seme da cui  stato generato il grafo
+	 *
+	 * @return il seme della generazione
+	 */
+	public long getSeme() {
+		return seme;
+	}
+
+	/**
+	 * ritorna il numero di archi del grafo, n*grado/2
+	 *
+	 * @return il numero di archi
+	 */
+	public int getNumeroArchi() {
+		return nodi1.length;
+	}
+
+	/**
+	 * ritorna il numero di archi del nodo i
+	 *
+	 * @param i (indice del nodo)
+	 * @return il numero di archi del nodo
+	 */
+	public int getGrado(int i) {
+		return inizio[i + 1] - inizio[i];
+	}
+
+	/**
+	 * ritorna il k-esimo vicino del nodo i
+	 *
+	 * @param i (indice del nodo)
+	 * @param k (posizione del vicino, tra 0 e getGrado(i)-1)
+	 * @return l'indice del vicino
+	 */
+	public int getVicino(int i, int k) {
+		return vicini[inizio[i] + k];
+	}
+
+	/**
+	 * ritorna la chiave dell'arco tra il nodo i e il suo k-esimo vicino
+	 *
+	 * @param i (indice del nodo)
+	 * @param k (posizione del vicino, tra 0 e getGrado(i)-1)
+	 * @return la chiave dell'arco
+	 */
+	public int getIndiceArco(int i, int k) {
+		return archi[inizio[i] + k];
+	}
+
+	/**
+	 * ritorna le chiavi degli archi del nodo i lette direttamente dall'elenco
+	 * compresso, nell'ordine dei vicini
+	 *
+	 * @param i (indice del nodo)
+	 * @return l'iteratore delle chiavi degli archi
+	 */
+	public PrimitiveIterator.OfInt iteratoreArchi(int i) {
+		return Arrays.stream(archi, inizio[i], inizio[i + 1]).iterator();
+	}
+
+	/**
+	 * ritorna l'indice del primo nodo dell'arco a
+	 *
+	 * @param a (chiave dell'arco)
+	 * @return l'indice del primo nodo
+	 */
+	public int getNodo1(int a) {
+		return nodi1[a];
+	}
+
+	/**
+	 * ritorna l'indice del secondo nodo dell'arco a
+	 *
+	 * @param a (chiave dell'arco)
+	 * @return l'indice del secondo nodo
+	 */
+	public int getNodo2(int a) {
+		return nodi2[a];
+	}
+
+	/**
+	 * ritorna il flusso con segno dell'arco a, positivo se va da nodo1 a nodo2
+	 *
+	 * @param a (chiave dell'arco)
+	 * @return il flusso dell'arco
+	 */
+	public int getFlusso(int a) {
+		return flussi[a];
+	}
+
+	/**
+	 * ritorna il valore dell'arco a
+	 *
+	 * @param a (chiave dell'arco)
+	 * @return il valore dell'arco
+	 */
+	public int getValore(int a) {
+		return Math.abs(flussi[a]);
+	}
+
+	/**
+	 * ritorna la direzione dell'arco a (false da nodo1 a nodo2, true da nodo2 a
+	 * nodo1)
+	 *
+	 * @param a (chiave dell'arco)
+	 * @return la direzione dell'arco
+	 */
+	public boolean getDirezione(int a) {
+		return flussi[a] < 0;
+	}
+
+	/**
+	 * calcola il bilancio del nodo i (ingressi - uscite) scorrendo i suoi archi
+	 *
+	 * @param i (indice del nodo)
+	 * @return il bilancio del nodo
+	 */
+	public int getBilancio(int i) {
+		int bilancio = 0;
+		for (int p = inizio[i]; p < inizio[i + 1]; p++) {
+			int a = archi[p];
+			bilancio += nodi2[a] == i ? flussi[a] : -flussi[a];
+		}
+		return bilancio;
+	}
+
+}
@@ -0,0 +1,218 @@
+package grafo;
+
+import java.util.*;
+
+/**
+ * memoria degli archi di un grafo completo come triangolo superiore di una
+ * matrice antisimmetrica: per ogni arco c' solo il flusso con segno, positivo
+ * se va da nodo1 a nodo2, quindi il segno codifica la direzione. Finch i
+ * flussi stanno in uno short viene usato uno short[], altrimenti un int[]. I nodi
+ * di ogni arco si ricavano dalla chiave, per cui non servono elenchi di incidenza
+ */
+class MatriceFlussi implements MemoriaArchi {
+	/**
+	 * numero di nodi del grafo
+	 */
+	private int n;
+	/**
+	 * numero di archi del grafo, n*(n-1)/2
+	 */
+	private int numeroArchi;
+	/**
+	 * flussi degli archi finch stanno in uno short, null dopo l'allargamento
+	 */
+	private short[] corti;
+	/**
+	 * flussi degli archi quando non stanno in uno short, null prima
+	 */
+	private int[] interi;
+	/**
+	 * bilancio corrente di ogni nodo (ingressi - uscite)
+	 */
+	private int[] bilanci;
+
+	/**
+	 * costruttore della matrice con tutti i flussi a 0
+	 *
+	 * @param n (numero di nodi)
+	 * @param v (valore massimo previsto per un arco)
+	 */
+	MatriceFlussi(int n, int v) {
+		this.n = n;
+		numeroArchi = (int) ((long) n * (n - 1) / 2);
+		if (v <= Short.MAX_VALUE) {
+			corti = new short[numeroArchi];
+		} else {
+			interi = new int[numeroArchi];
+		}
+		bilanci = new int[n];
+	}
+
+	/**
+	 * crea una copia della memoria con un nodo in pi, gli archi del nuovo nodo
+	 * hanno flusso 0. Le chiavi sono numerate riga per riga quindi ogni riga viene
+	 * spostata nella nuova posizione con una sola copia di array.
+	 * <p>
+	 * Ogni aggiunta costa O(n): con le chiavi numerate colonna per colonna gli
+	 * archi vecchi manterrebbero la loro chiave e basterebbe accodare quelli del
+	 * nuovo nodo, ma l'ordine riga per riga  quello in cui getArco(int) ha sempre
+	 * numerato gli archi e {@link EquilibrioValidator} legge gli archi di ogni
+	 * nodo come un tratto contiguo. In pi l'array ha una lunghezza fissa e va
+	 * comunque riallocato e copiato a ogni nodo, quindi le righe spostate non
+	 * cambiano l'ordine del costo
+	 *
+	 * @param memoria (memoria da copiare)
+	 * @param v       (valore massimo previsto per un arco)
+	 * @return la nuova memoria con n+1 nodi
+	 */
+	static MatriceFlussi allargata(MemoriaArchi memoria, int v) {
+		int n = memoria.getN();
+		MatriceFlussi nuova = new MatriceFlussi(n + 1, v);
+		if (memoria instanceof MatriceFlussi) {
+			MatriceFlussi vecchia = (MatriceFlussi) memoria;
+			if (vecchia.corti == null && nuova.corti != null) {
+				nuova.interi = new int[nuova.numeroArchi];
+				nuova.corti = null;
+			}
+			for (int i = 0; i + 1 < n; i++) {
+				int da = MemoriaArchi.indice(i, i + 1, n);
+				int a = MemoriaArchi.indice(i, i + 1, n + 1);
+				if (nuova.corti != null) {
+					System.arraycopy(vecchia.corti, da, nuova.corti, a, n - 1 - i);
+				} else if (vecchia.corti != null) {
+					for (int c = 0; c < n - 1 - i; c++) {
+						nuova.interi[a + c] = vecchia.corti[da + c];
+					}
+				} else {
+					System.arraycopy(vecchia.interi, da, nuova.interi, a, n - 1 - i);
+				}
+			}
+			System.arraycopy(vecchia.bilanci, 0, nuova.bilanci, 0, n);
+			return nuova;
+		}
+		for (int i = 0; i < n; i++) {
+			for (int c = i + 1; c < n; c++) {
+				nuova.setFlussoTra(i, c, memoria.getFlussoTra(i, c));
+			}
+		}
+		return nuova;
+	}
+
+	/**
+	 * ritorna i flussi memorizzati come short, riga per riga
+	 *
+	 * @return l'array dei flussi, null se i flussi sono memorizzati come int
+	 */
+	short[] getCorti() {
+		return corti;
+	}
+
+	/**
+	 * ritorna i flussi memorizzati come int, riga per riga
+	 *
+	 * @return l'array dei flussi, null se i flussi sono memorizzati come short
+	 */
+	int[] getInteri() {
+		return interi;
+	}
+
+	@Override
+	public int getN() {
+		return n;
+	}
+
+	@Override
+	public int getNumeroArchi() {
+		return numeroArchi;
+	}
+
+	@Override
+	public int getFlusso(int a) {
+		return corti != null ? corti[a] : interi[a];
+	}
+
+	@Override
+	public int getValore(int a) {
+		return Math.abs(getFlusso(a));
+	}
+
+	@Override
+	public boolean getDirezione(int a) {
+		return getFlusso(a) < 0;
+	}
+
+	@Override
+	public void setValore(int a, int valore, boolean direzione) {
+		setFlusso(a, direzione ? -valore : valore);
+	}
+
+	@Override
+	public void setFlusso(int a, int flusso) {
+		int i = MemoriaArchi.nodo1(a, n);
+		scrivi(a, i, MemoriaArchi.nodo2(a, n), flusso);
+	}
+
+	@Override
+	public int getFlussoTra(int x, int y) {
+		int f = getFlusso(MemoriaArchi.indice(x, y, n));
+		return x < y ? f : -f;
+	}
+
+	@Override
+	public void setFlussoTra(int x, int y, int flusso) {
+		if (x < y) {
+			scrivi(MemoriaArchi.indice(x, y, n), x, y, flusso);
+		} else {
+			scrivi(MemoriaArchi.indice(x, y, n), y, x, -flusso);
+		}
+	}
+
+	@Override
+	public void azzera() {
+		if (corti != null) {
+			Arrays.fill(corti, (short) 0);
+		} else {
+			Arrays.fill(interi, 0);
+		}
+		Arrays.fill(bilanci, 0);
+	}
+
+	@Override
+	public int getBilancio(int i) {
+		return bilanci[i];
+	}
+
+	/**
+	 * scrive il flusso dell'arco a tra i nodi i < c aggiornando i due bilanci
+	 *
+	 * @param a      (chiave dell'arco)
+	 * @param i      (primo nodo dell'arco)
+	 * @param c      (secondo nodo dell'arco)
+	 * @param flusso (flusso con segno da i a c)
+	 */
+	private void scrivi(int a, int i, int c, int flusso) {
+		int delta = flusso - getFlusso(a);
+		bilanci[i] -= delta;
+		bilanci[c] += delta;
+		if (corti != null && (flusso > Short.MAX_VALUE || flusso < -Short.MAX_VALUE)) {
+			allarga();
+		}
+		if (corti != null) {
+			corti[a] = (short) flusso;
+		} else {
+			interi[a] = flusso;
+		}
+	}
+
+	/**
+	 * passa dallo short[] all'int[] quando un flusso non ci sta pi
+	 */
+	private void allarga() {
+		interi = new int[numeroArchi];
+		for (int a = 0; a < numeroArchi; a++) {
+			interi[a] = corti[a];
+		}
+		corti = null;
+	}
+
+}
@@ -0,0 +1,341 @@
+package grafo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * memoria degli archi per i grafi condivisi tra pi thread: come in
+ * {@link MatriceFlussi} ogni arco  un solo flusso con segno, quindi valore e
+ * direzione stanno nello stesso int di un AtomicIntegerArray e ogni modifica 
+ * una sola operazione atomica. I bilanci dei nodi sono contatori LongAdder, che
+ * non si contendono la stessa cella tra thread diversi; mentre altri thread
+ * scrivono un bilancio letto pu non comprendere le ultime modifiche, ma a
+ * scritture finite torna sempre esatto.
+ * <p>
+ * I flussi sono divisi in blocchi di BLOCCO archi come in
+ * {@link MatriceFlussiCondivisa}: una fotografia condivide i blocchi e li segna
+ * come condivisi, e chi scrive in un blocco condiviso prima lo copia. Mentre la
+ * fotografia segna i blocchi e legge i bilanci le scritture aspettano, cos
+ * flussi e bilanci della fotografia sono sempre coerenti; l'attesa costa
+ * O(archi / BLOCCO + n) e non una copia di tutti gli archi
+ */
+class MatriceFlussiConcorrente implements MemoriaArchi {
+	/**
+	 * esponente della dimensione di un blocco
+	 */
+	private static final int SPOSTAMENTO = 12;
+	/**
+	 * numero di archi in ogni blocco
+	 */
+	static final int BLOCCO = 1 << SPOSTAMENTO;
+	/**
+	 * numero di nodi del grafo
+	 */
+	private final int n;
+	/**
+	 * numero di archi del grafo
+	 */
+	private final int numeroArchi;
+	/**
+	 * blocchi dei flussi con segno, positivi se vanno da nodo1 a nodo2
+	 */
+	private final AtomicReferenceArray<Blocco> blocchi;
+	/**
+	 * bilancio di ogni nodo (ingressi - uscite)
+	 */
+	private final LongAdder[] bilanci;
+	/**
+	 * true mentre una fotografia segna i blocchi e legge i bilanci
+	 */
+	private volatile boolean inFotografia;
+
+	/**
+	 * flussi di BLOCCO archi consecutivi con il numero di scritture in corso
+	 */
+	private static final class Blocco {
+		private final AtomicIntegerArray flussi;
+		/**
+		 * scritture iniziate e non ancora finite, compreso il bilancio
+		 */
+		private final AtomicInteger scrittori = new AtomicInteger();
+		/**
+		 * true se il blocco appartiene anche a una fotografia e non va pi
+		 * modificato
+		 */
+		private volatile boolean condiviso;
+
+		Blocco(AtomicIntegerArray flussi) {
+			this.flussi = flussi;
+		}
+	}
+
+	/**
+	 * costruttore della matrice con tutti i flussi a 0
+	 *
+	 * @param n (numero di nodi)
+	 */
+	MatriceFlussiConcorrente(int n) {
+		this.n = n;
+		numeroArchi = (int) ((long) n * (n - 1) / 2);
+		int quanti = (numeroArchi + BLOCCO - 1) >>> SPOSTAMENTO;
+		blocchi = new AtomicReferenceArray<Blocco>(quanti);
+		for (int b = 0; b < quanti; b++) {
+			blocchi.set(b, new Blocco(new AtomicIntegerArray(archiNelBlocco(b))));
+		}
+		bilanci = new LongAdder[n];
+		for (int i = 0; i < n; i++) {
+			bilanci[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * crea una copia concorrente di una memoria gi riempita
+	 *
+	 * @param memoria (memoria da copiare)
+	 * @return la copia
+	 */
+	static MatriceFlussiConcorrente copia(MemoriaArchi memoria) {
+		MatriceFlussiConcorrente nuova = new MatriceFlussiConcorrente(memoria.getN());
+		for (int a = 0; a < nuova.numeroArchi; a++) {
+			nuova.blocchi.get(a >>> SPOSTAMENTO).flussi.set(a & (BLOCCO - 1), memoria.getFlusso(a));
+		}
+		for (int i = 0; i < nuova.n; i++) {
+			nuova.bilanci[i].add(memoria.getBilancio(i));
+		}
+		return nuova;
+	}
+
+	/**
+	 * ritorna il numero di archi contenuti nel blocco b
+	 *
+	 * @param b (indice del blocco)
+	 * @return il numero di archi
+	 */
+	private int archiNelBlocco(int b) {
+		return Math.min(BLOCCO, numeroArchi - (b << SPOSTAMENTO));
+	}
+
+	/**
+	 * crea una fotografia di sola lettura dello stato attuale. Le scritture che
+	 * arrivano mentre viene scattata aspettano, quelle gi iniziate vengono
+	 * lasciate finire; da quel momento tutti i blocchi sono condivisi e vengono
+	 * copiati alla prima scrittura
+	 *
+	 * @return la fotografia
+	 */
+	synchronized MemoriaArchi fotografia() {
+		inFotografia = true;
+		try {
+			AtomicIntegerArray[] flussi = new AtomicIntegerArray[blocchi.length()];
+			for (int b = 0; b < flussi.length; b++) {
+				Blocco blocco = blocchi.get(b);
+				blocco.condiviso = true;
+				while (blocco.scrittori.get() != 0) {
+					Thread.yield();
+				}
+				flussi[b] = blocco.flussi;
+			}
+			int[] fissati = new int[n];
+			for (int i = 0; i < n; i++) {
+				fissati[i] = (int) bilanci[i].sum();
+			}
+			return new Fotografia(n, numeroArchi, flussi, fissati);
+		} finally {
+			inFotografia = false;
+		}
+	}
+
+	/**
+	 * ritorna il blocco dell'arco a pronto per essere scritto, con la scrittura
+	 * gi contata: va chiuso con {@link #fine(Blocco)}. Aspetta la fine di una
+	 * fotografia in corso e copia il blocco se  condiviso
+	 *
+	 * @param a (chiave dell'arco)
+	 * @return il blocco da scrivere
+	 */
+	private Blocco inizio(int a) {
+		int b = a >>> SPOSTAMENTO;
+		while (true) {
+			Blocco blocco = blocchi.get(b);
+			if (!blocco.condiviso) {
+				blocco.scrittori.incrementAndGet();
+				if (!blocco.condiviso && !inFotografia) {
+					return blocco;
+				}
+				blocco.scrittori.decrementAndGet();
+			}
+			while (inFotografia) {
+				Thread.yield();
+			}
+			if (blocco.condiviso) {
+				AtomicIntegerArray copia = new AtomicIntegerArray(archiNelBlocco(b));
+				for (int k = 0; k < copia.length(); k++) {
+					copia.set(k, blocco.flussi.get(k));
+				}
+				blocchi.compareAndSet(b, blocco, new Blocco(copia));
+			}
+		}
+	}
+
+	/**
+	 * chiude una scrittura aperta con {@link #inizio(int)}
+	 *
+	 * @param blocco (blocco scritto)
+	 */
+	private static void fine(Blocco blocco) {
+		blocco.scrittori.decrementAndGet();
+	}
+
+	@Override
+	public int getN() {
+		return n;
+	}
+
+	@Override
+	public int getNumeroArchi() {
+		return numeroArchi;
+	}
+
+	@Override
+	public int getFlusso(int a) {
+		return blocchi.get(a >>> SPOSTAMENTO).flussi.get(a & (BLOCCO - 1));
+	}
+
+	@Override
+	public int getValore(int a) {
+		return Math.abs(getFlusso(a));
+	}
+
+	@Override
+	public boolean getDirezione(int a) {
+		return getFlusso(a) < 0;
+	}
+
+	@Override
+	public void setValore(int a, int valore, boolean direzione) {
+		setFlusso(a, direzione ? -valore : valore);
+	}
+
+	@Override
+	public void setFlusso(int a, int flusso) {
+		Blocco blocco = inizio(a);
+		try {
+			int delta = flusso - blocco.flussi.getAndSet(a & (BLOCCO - 1), flusso);
+			if (delta != 0) {
+				aggiorna(a, delta);
+			}
+		} finally {
+			fine(blocco);
+		}
+	}
+
+	@Override
+	public boolean confrontaEImposta(int a, int atteso, int flusso) {
+		Blocco blocco = inizio(a);
+		try {
+			if (!blocco.flussi.compareAndSet(a & (BLOCCO - 1), atteso, flusso)) {
+				return false;
+			}
+			if (flusso != atteso) {
+				aggiorna(a, flusso - atteso);
+			}
+			return true;
+		} finally {
+			fine(blocco);
+		}
+	}
+
+	@Override
+	public synchronized void azzera() {
+		// i blocchi vengono sostituiti, quelli condivisi restano alle fotografie
+		for (int b = 0; b < blocchi.length(); b++) {
+			blocchi.set(b, new Blocco(new AtomicIntegerArray(archiNelBlocco(b))));
+		}
+		for (int i = 0; i < n; i++) {
+			bilanci[i].reset();
+		}
+	}
+
+	@Override
+	public int getBilancio(int i) {
+		return (int) bilanci[i].sum();
+	}
+
+	/**
+	 * sposta sui bilanci dei due nodi la variazione di flusso dell'arco a
+	 *
+	 * @param a     (chiave dell'arco)
+	 * @param delta (variazione del flusso)
+	 */
+	private void aggiorna(int a, int delta) {
+		int i = MemoriaArchi.nodo1(a, n);
+		bilanci[i].add(-delta);
+		bilanci[MemoriaArchi.nodo2(a, n)].add(delta);
+	}
+
+	/**
+	 * fotografia di sola lettura di una memoria concorrente, con i blocchi
+	 * condivisi e i bilanci letti mentre le scritture erano ferme
+	 */
+	private static final class Fotografia implements MemoriaArchi {
+		private final int n;
+		private final int numeroArchi;
+		private final AtomicIntegerArray[] flussi;
+		private final int[] bilanci;
+
+		Fotografia(int n, int numeroArchi, AtomicIntegerArray[] flussi, int[] bilanci) {
+			this.n = n;
+			this.numeroArchi = numeroArchi;
+			this.flussi = flussi;
+			this.bilanci = bilanci;
+		}
+
+		@Override
+		public int getN() {
+			return n;
+		}
+
+		@Override
+		public int getNumeroArchi() {
+			return numeroArchi;
+		}
+
+		@Override
+		public int getFlusso(int a) {
+			return flussi[a >>> SPOSTAMENTO].get(a & (BLOCCO - 1));
+		}
+
+		@Override
+		public int getValore(int a) {
+			return Math.abs(getFlusso(a));
+		}
+
+		@Override
+		public boolean getDirezione(int a) {
+			return getFlusso(a) < 0;
+		}
+
+		@Override
+		public void setValore(int a, int valore, boolean direzione) {
+			throw new UnsupportedOperationException("fotografia di sola lettura");
+		}
+
+		@Override
+		public void setFlusso(int a, int flusso) {
+			throw new UnsupportedOperationException("fotografia di sola lettura");
+		}
+
+		@Override
+		public void azzera() {
+			throw new UnsupportedOperationException("fotografia di sola lettura");
+		}
+
+		@Override
+		public int getBilancio(int i) {
+			return bilanci[i];
+		}
+	}
+
+}
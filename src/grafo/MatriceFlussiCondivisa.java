@@ -0,0 +1,229 @@
+package grafo;
+
+import java.util.*;
+
+/**
+ * memoria degli archi divisa in blocchi che possono essere condivisi con le
+ * fotografie del grafo. Ogni blocco contiene i flussi con segno di BLOCCO archi
+ * consecutivi; una fotografia copia solo l'elenco dei blocchi e da quel momento
+ * il grafo che la ha scattata copia un blocco la prima volta che ci scrive,
+ * quindi fotografare costa O(archi / BLOCCO) e ogni fotografia successiva costa
+ * solo i blocchi modificati nel frattempo. Le fotografie sono di sola lettura e i
+ * loro blocchi non vengono pi modificati, per cui si possono leggere da altri
+ * thread mentre il grafo originale continua a cambiare
+ */
+class MatriceFlussiCondivisa implements MemoriaArchi {
+	/**
+	 * esponente della dimensione di un blocco
+	 */
+	private static final int SPOSTAMENTO = 12;
+	/**
+	 * numero di archi in ogni blocco
+	 */
+	static final int BLOCCO = 1 << SPOSTAMENTO;
+	/**
+	 * numero di nodi del grafo
+	 */
+	private int n;
+	/**
+	 * numero di archi del grafo
+	 */
+	private int numeroArchi;
+	/**
+	 * blocchi dei flussi con segno, positivi se vanno da nodo1 a nodo2
+	 */
+	private int[][] blocchi;
+	/**
+	 * bilancio di ogni nodo (ingressi - uscite)
+	 */
+	private int[] bilanci;
+	/**
+	 * per ogni blocco true se appartiene solo a questa memoria e si pu scrivere
+	 * senza copiarlo, null per le fotografie
+	 */
+	private boolean[] propri;
+	/**
+	 * true se anche i bilanci appartengono solo a questa memoria
+	 */
+	private boolean bilanciPropri;
+
+	/**
+	 * costruttore della memoria con tutti i flussi a 0
+	 *
+	 * @param n (numero di nodi)
+	 */
+	MatriceFlussiCondivisa(int n) {
+		this.n = n;
+		numeroArchi = (int) ((long) n * (n - 1) / 2);
+		int quanti = (numeroArchi + BLOCCO - 1) >>> SPOSTAMENTO;
+		blocchi = new int[quanti][];
+		for (int b = 0; b < quanti; b++) {
+			blocchi[b] = new int[Math.min(BLOCCO, numeroArchi - (b << SPOSTAMENTO))];
+		}
+		bilanci = new int[n];
+		propri = new boolean[quanti];
+		Arrays.fill(propri, true);
+		bilanciPropri = true;
+	}
+
+	/**
+	 * costruttore di una fotografia che condivide i blocchi dati
+	 *
+	 * @param n           (numero di nodi)
+	 * @param numeroArchi (numero di archi)
+	 * @param blocchi     (blocchi da condividere)
+	 * @param bilanci     (bilanci da condividere)
+	 */
+	private MatriceFlussiCondivisa(int n, int numeroArchi, int[][] blocchi, int[] bilanci) {
+		this.n = n;
+		this.numeroArchi = numeroArchi;
+		this.blocchi = blocchi;
+		this.bilanci = bilanci;
+	}
+
+	/**
+	 * copia una memoria qualsiasi in una memoria a blocchi. I bilanci vengono
+	 * ricalcolati dai flussi copiati, cos restano coerenti anche se la memoria
+	 * di partenza viene modificata da altri thread durante la copia
+	 *
+	 * @param memoria (memoria da copiare)
+	 * @return la copia
+	 */
+	static MatriceFlussiCondivisa copia(MemoriaArchi memoria) {
+		int n = memoria.getN();
+		MatriceFlussiCondivisa nuova = new MatriceFlussiCondivisa(n);
+		int a = 0;
+		for (int i = 0; i < n; i++) {
+			for (int c = i + 1; c < n; c++) {
+				int f = memoria.getFlusso(a);
+				nuova.blocchi[a >>> SPOSTAMENTO][a & (BLOCCO - 1)] = f;
+				nuova.bilanci[i] -= f;
+				nuova.bilanci[c] += f;
+				a++;
+			}
+		}
+		return nuova;
+	}
+
+	/**
+	 * crea una fotografia di sola lettura dello stato attuale, da questo momento
+	 * tutti i blocchi sono condivisi e verranno copiati alla prima scrittura
+	 *
+	 * @return la fotografia
+	 */
+	MatriceFlussiCondivisa fotografia() {
+		if (propri == null) {
+			return this;
+		}
+		Arrays.fill(propri, false);
+		bilanciPropri = false;
+		return new MatriceFlussiCondivisa(n, numeroArchi, blocchi.clone(), bilanci);
+	}
+
+	/**
+	 * crea una copia scrivibile della memoria con un nodo in pi, gli archi del
+	 * nuovo nodo hanno flusso 0
+	 *
+	 * @param memoria (memoria da copiare)
+	 * @return la nuova memoria con n+1 nodi
+	 */
+	static MatriceFlussiCondivisa allargata(MatriceFlussiCondivisa memoria) {
+		int n = memoria.n;
+		MatriceFlussiCondivisa nuova = new MatriceFlussiCondivisa(n + 1);
+		for (int i = 0; i < n; i++) {
+			for (int c = i + 1; c < n; c++) {
+				int a = MemoriaArchi.indice(i, c, n + 1);
+				nuova.blocchi[a >>> SPOSTAMENTO][a & (BLOCCO - 1)] = memoria.getFlusso(MemoriaArchi.indice(i, c, n));
+			}
+		}
+		System.arraycopy(memoria.bilanci, 0, nuova.bilanci, 0, n);
+		return nuova;
+	}
+
+	/**
+	 * ritorna se la memoria  una fotografia di sola lettura
+	 *
+	 * @return true per le fotografie
+	 */
+	boolean isFotografia() {
+		return propri == null;
+	}
+
+	@Override
+	public int getN() {
+		return n;
+	}
+
+	@Override
+	public int getNumeroArchi() {
+		return numeroArchi;
+	}
+
+	@Override
+	public int getFlusso(int a) {
+		return blocchi[a >>> SPOSTAMENTO][a & (BLOCCO - 1)];
+	}
+
+	@Override
+	public int getValore(int a) {
+		return Math.abs(getFlusso(a));
+	}
+
+	@Override
+	public boolean getDirezione(int a) {
+		return getFlusso(a) < 0;
+	}
+
+	@Override
+	public void setValore(int a, int valore, boolean direzione) {
+		setFlusso(a, direzione ? -valore : valore);
+	}
+
+	@Override
+	public void setFlusso(int a, int flusso) {
+		if (propri == null) {
+			throw new UnsupportedOperationException("fotografia di sola lettura");
+		}
+		int b = a >>> SPOSTAMENTO;
+		if (!propri[b]) {
+			blocchi[b] = blocchi[b].clone();
+			propri[b] = true;
+		}
+		if (!bilanciPropri) {
+			bilanci = bilanci.clone();
+			bilanciPropri = true;
+		}
+		int[] blocco = blocchi[b];
+		int delta = flusso - blocco[a & (BLOCCO - 1)];
+		blocco[a & (BLOCCO - 1)] = flusso;
+		bilanci[MemoriaArchi.nodo1(a, n)] -= delta;
+		bilanci[MemoriaArchi.nodo2(a, n)] += delta;
+	}
+
+	@Override
+	public void azzera() {
+		if (propri == null) {
+			throw new UnsupportedOperationException("fotografia di sola lettura");
+		}
+		for (int b = 0; b < blocchi.length; b++) {
+			if (propri[b]) {
+				Arrays.fill(blocchi[b], 0);
+			} else {
+				blocchi[b] = new int[blocchi[b].length];
+				propri[b] = true;
+			}
+		}
+		if (bilanciPropri) {
+			Arrays.fill(bilanci, 0);
+		} else {
+			bilanci = new int[n];
+			bilanciPropri = true;
+		}
+	}
+
+	@Override
+	public int getBilancio(int i) {
+		return bilanci[i];
+	}
+
+}
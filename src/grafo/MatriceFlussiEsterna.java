@@ -0,0 +1,386 @@
+package grafo;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * memoria degli archi fuori dallo heap, in buffer diretti oppure in un file
+ * mappato in memoria, per i grafi molto grandi che non devono pesare sul
+ * garbage collector. Lo spazio  diviso in un'intestazione (codice, n, v,
+ * ordine dei byte, seme), i bilanci dei nodi e i flussi con segno degli archi,
+ * tutti int little endian qualunque sia la macchina, cos un file scritto su una
+ * macchina si riapre su tutte le altre; i flussi sono divisi in segmenti perch
+ * un buffer non pu superare i 2 GB.
+ * <p>
+ * La memoria ha un solo proprietario, il thread che la usa o chi coordina i
+ * thread che la usano: la memoria si libera subito con {@link #chiudi()}, che va
+ * chiamato solo quando nessun altro thread la sta leggendo o scrivendo, perch
+ * un accesso a un buffer gi liberato pu far cadere la JVM. Dopo la chiusura
+ * ogni accesso lancia IllegalStateException
+ */
+class MatriceFlussiEsterna implements MemoriaArchi {
+	/**
+	 * codice iniziale dello spazio ("GEQ2")
+	 */
+	private static final int CODICE = 0x47455132;
+	/**
+	 * ordine dei byte di tutto lo spazio
+	 */
+	private static final ByteOrder ORDINE = ByteOrder.LITTLE_ENDIAN;
+	/**
+	 * valore scritto nell'intestazione per l'ordine little endian
+	 */
+	private static final int LITTLE_ENDIAN = 1;
+	/**
+	 * byte occupati dall'intestazione
+	 */
+	static final int INTESTAZIONE = 24;
+	/**
+	 * esponente del numero di archi in ogni segmento
+	 */
+	private static final int SPOSTAMENTO = 28;
+	/**
+	 * numero di archi in ogni segmento
+	 */
+	private static final int SEGMENTO = 1 << SPOSTAMENTO;
+	/**
+	 * metodo invokeCleaner di sun.misc.Unsafe e la sua istanza, null se non
+	 * disponibili: in quel caso i buffer vengono liberati dal garbage collector
+	 */
+	private static final Method PULITORE;
+	private static final Object UNSAFE;
+
+	static {
+		Method pulitore = null;
+		Object unsafe = null;
+		try {
+			Class<?> classe = Class.forName("sun.misc.Unsafe");
+			Field campo = classe.getDeclaredField("theUnsafe");
+			campo.setAccessible(true);
+			unsafe = campo.get(null);
+			pulitore = classe.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			pulitore = null;
+			unsafe = null;
+		}
+		PULITORE = pulitore;
+		UNSAFE = unsafe;
+	}
+
+	/**
+	 * numero di nodi del grafo
+	 */
+	private int n;
+	/**
+	 * numero di archi del grafo
+	 */
+	private int numeroArchi;
+	/**
+	 * intestazione seguita dai bilanci dei nodi
+	 */
+	private ByteBuffer testa;
+	/**
+	 * segmenti dei flussi degli archi
+	 */
+	private ByteBuffer[] segmenti;
+	/**
+	 * true dopo {@link #chiudi()}, impostato prima di liberare i buffer
+	 */
+	private volatile boolean chiusa;
+
+	/**
+	 * costruttore privato, la memoria si crea con {@link #alloca(int, int, long)}
+	 * o con {@link #mappa(Path, int, int, long)}
+	 *
+	 * @param n (numero di nodi)
+	 */
+	private MatriceFlussiEsterna(int n) {
+		long archi = (long) n * (n - 1) / 2;
+		if (archi > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("troppi archi per " + n + " nodi");
+		}
+		this.n = n;
+		this.numeroArchi = (int) archi;
+		segmenti = new ByteBuffer[(numeroArchi + SEGMENTO - 1) >>> SPOSTAMENTO];
+	}
+
+	/**
+	 * alloca la memoria in buffer diretti fuori dallo heap, con tutti i flussi a 0
+	 *
+	 * @param n    (numero di nodi)
+	 * @param v    (valore massimo di un arco)
+	 * @param seme (seme del grafo, scritto nell'intestazione)
+	 * @return la memoria
+	 */
+	static MatriceFlussiEsterna alloca(int n, int v, long seme) {
+		MatriceFlussiEsterna memoria = new MatriceFlussiEsterna(n);
+		try {
+			memoria.testa = ByteBuffer.allocateDirect(INTESTAZIONE + 4 * n).order(ORDINE);
+			for (int s = 0; s < memoria.segmenti.length; s++) {
+				memoria.segmenti[s] = ByteBuffer.allocateDirect(4 * memoria.archiNelSegmento(s))
+						.order(ORDINE);
+			}
+		} catch (Throwable e) {
+			// libera i segmenti gi allocati se uno non ci sta pi
+			memoria.chiudi();
+			throw e;
+		}
+		memoria.scriviIntestazione(v, seme);
+		return memoria;
+	}
+
+	/**
+	 * crea o sovrascrive il file e lo mappa in memoria, con tutti i flussi a 0
+	 *
+	 * @param file (file da creare)
+	 * @param n    (numero di nodi)
+	 * @param v    (valore massimo di un arco)
+	 * @param seme (seme del grafo, scritto nell'intestazione)
+	 * @return la memoria mappata sul file
+	 * @throws IOException in caso di errore del file
+	 */
+	static MatriceFlussiEsterna mappa(Path file, int n, int v, long seme) throws IOException {
+		MatriceFlussiEsterna memoria = new MatriceFlussiEsterna(n);
+		try (FileChannel canale = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			memoria.mappaSegmenti(canale);
+		} catch (Throwable e) {
+			memoria.chiudi();
+			throw e;
+		}
+		memoria.scriviIntestazione(v, seme);
+		return memoria;
+	}
+
+	/**
+	 * mappa in memoria un file creato con {@link #mappa(Path, int, int, long)}
+	 * usando i valori che contiene
+	 *
+	 * @param file (file da aprire)
+	 * @return la memoria mappata sul file
+	 * @throws IOException se il file non  valido o in caso di errore del file
+	 */
+	static MatriceFlussiEsterna apri(Path file) throws IOException {
+		try (FileChannel canale = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer intestazione = ByteBuffer.allocate(INTESTAZIONE).order(ORDINE);
+			while (intestazione.hasRemaining()) {
+				if (canale.read(intestazione, intestazione.position()) < 0) {
+					throw new IOException("intestazione del grafo incompleta");
+				}
+			}
+			if (intestazione.getInt(0) != CODICE) {
+				throw new IOException("il file non contiene un grafo");
+			}
+			if (intestazione.getInt(12) != LITTLE_ENDIAN) {
+				throw new IOException("ordine dei byte del grafo non supportato: " + intestazione.getInt(12));
+			}
+			MatriceFlussiEsterna memoria = new MatriceFlussiEsterna(intestazione.getInt(4));
+			if (canale.size() != memoria.dimensione()) {
+				throw new IOException("grafo troncato");
+			}
+			try {
+				memoria.mappaSegmenti(canale);
+			} catch (Throwable e) {
+				memoria.chiudi();
+				throw e;
+			}
+			return memoria;
+		}
+	}
+
+	/**
+	 * mappa intestazione, bilanci e segmenti dei flussi dal canale
+	 *
+	 * @param canale (canale del file, aperto in lettura e scrittura)
+	 * @throws IOException in caso di errore del file
+	 */
+	private void mappaSegmenti(FileChannel canale) throws IOException {
+		long posizione = INTESTAZIONE + 4L * n;
+		testa = canale.map(FileChannel.MapMode.READ_WRITE, 0, posizione).order(ORDINE);
+		for (int s = 0; s < segmenti.length; s++) {
+			int byteSegmento = 4 * archiNelSegmento(s);
+			segmenti[s] = canale.map(FileChannel.MapMode.READ_WRITE, posizione, byteSegmento)
+					.order(ORDINE);
+			posizione += byteSegmento;
+		}
+	}
+
+	/**
+	 * scrive l'intestazione
+	 *
+	 * @param v    (valore massimo di un arco)
+	 * @param seme (seme del grafo)
+	 */
+	private void scriviIntestazione(int v, long seme) {
+		testa.putInt(0, CODICE);
+		testa.putInt(4, n);
+		testa.putInt(8, v);
+		testa.putInt(12, LITTLE_ENDIAN);
+		testa.putLong(16, seme);
+	}
+
+	/**
+	 * ritorna il numero di archi contenuti nel segmento s
+	 *
+	 * @param s (indice del segmento)
+	 * @return il numero di archi
+	 */
+	private int archiNelSegmento(int s) {
+		return Math.min(SEGMENTO, numeroArchi - (s << SPOSTAMENTO));
+	}
+
+	/**
+	 * ritorna i byte occupati da tutto lo spazio
+	 *
+	 * @return la dimensione in byte
+	 */
+	long dimensione() {
+		return INTESTAZIONE + 4L * n + 4L * numeroArchi;
+	}
+
+	/**
+	 * ritorna il valore massimo scritto nell'intestazione
+	 *
+	 * @return il valore massimo di un arco
+	 */
+	int getV() {
+		aperta();
+		return testa.getInt(8);
+	}
+
+	/**
+	 * ritorna il seme scritto nell'intestazione
+	 *
+	 * @return il seme del grafo
+	 */
+	long getSeme() {
+		aperta();
+		return testa.getLong(16);
+	}
+
+	/**
+	 * lancia l'eccezione se la memoria  gi stata chiusa
+	 */
+	private void aperta() {
+		if (chiusa) {
+			throw new IllegalStateException("memoria del grafo gi chiusa");
+		}
+	}
+
+	/**
+	 * libera subito i buffer diretti o toglie la mappatura del file, se la JVM lo
+	 * permette; altrimenti li lascia al garbage collector. Le letture e le
+	 * scritture successive lanciano IllegalStateException. Non va chiamato mentre
+	 * altri thread usano la memoria: il controllo protegge chi arriva dopo la
+	 * chiusura, non chi sta gi leggendo un buffer
+	 */
+	synchronized void chiudi() {
+		if (chiusa) {
+			return;
+		}
+		chiusa = true;
+		ByteBuffer[] buffer = segmenti;
+		ByteBuffer intestazione = testa;
+		segmenti = null;
+		testa = null;
+		libera(intestazione);
+		for (ByteBuffer b : buffer) {
+			libera(b);
+		}
+	}
+
+	/**
+	 * libera un buffer diretto o mappato
+	 *
+	 * @param buffer (buffer da liberare, null se non  mai stato allocato)
+	 */
+	private static void libera(ByteBuffer buffer) {
+		if (PULITORE == null || buffer == null) {
+			return;
+		}
+		try {
+			PULITORE.invoke(UNSAFE, buffer);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// resta al garbage collector
+		}
+	}
+
+	@Override
+	public int getN() {
+		return n;
+	}
+
+	@Override
+	public int getNumeroArchi() {
+		return numeroArchi;
+	}
+
+	@Override
+	public int getFlusso(int a) {
+		aperta();
+		return segmenti[a >>> SPOSTAMENTO].getInt((a & (SEGMENTO - 1)) << 2);
+	}
+
+	@Override
+	public int getValore(int a) {
+		return Math.abs(getFlusso(a));
+	}
+
+	@Override
+	public boolean getDirezione(int a) {
+		return getFlusso(a) < 0;
+	}
+
+	@Override
+	public void setValore(int a, int valore, boolean direzione) {
+		setFlusso(a, direzione ? -valore : valore);
+	}
+
+	@Override
+	public void setFlusso(int a, int flusso) {
+		aperta();
+		ByteBuffer segmento = segmenti[a >>> SPOSTAMENTO];
+		int posizione = (a & (SEGMENTO - 1)) << 2;
+		int delta = flusso - segmento.getInt(posizione);
+		segmento.putInt(posizione, flusso);
+		aggiungi(MemoriaArchi.nodo1(a, n), -delta);
+		aggiungi(MemoriaArchi.nodo2(a, n), delta);
+	}
+
+	@Override
+	public void azzera() {
+		aperta();
+		for (int i = 0; i < n; i++) {
+			testa.putInt(INTESTAZIONE + 4 * i, 0);
+		}
+		for (ByteBuffer segmento : segmenti) {
+			for (int p = 0; p < segmento.capacity(); p += 4) {
+				segmento.putInt(p, 0);
+			}
+		}
+	}
+
+	@Override
+	public int getBilancio(int i) {
+		aperta();
+		return testa.getInt(INTESTAZIONE + 4 * i);
+	}
+
+	/**
+	 * somma delta al bilancio del nodo i
+	 *
+	 * @param i     (indice del nodo)
+	 * @param delta (valore da sommare)
+	 */
+	private void aggiungi(int i, int delta) {
+		int posizione = INTESTAZIONE + 4 * i;
+		testa.putInt(posizione, testa.getInt(posizione) + delta);
+	}
+
+}
@@ -0,0 +1,213 @@
+package grafo;
+
+/**
+ * memoria dei dati degli archi di un grafo completo: valore, direzione e
+ * bilancio dei nodi. Le chiavi degli archi seguono la numerazione riga per riga
+ * usata dal costruttore del grafo, quindi le diverse implementazioni sono
+ * intercambiabili dietro a {@link Grafo} e {@link Arco}
+ */
+interface MemoriaArchi {
+
+	/**
+	 * calcola la chiave dell'arco che collega i nodi i e c in un grafo completo di
+	 * n nodi, gli archi sono numerati riga per riga come nel costruttore del grafo
+	 *
+	 * @param i (indice del primo nodo)
+	 * @param c (indice del secondo nodo, diverso da i)
+	 * @param n (numero di nodi del grafo)
+	 * @return la chiave dell'arco
+	 */
+	static int indice(int i, int c, int n) {
+		if (i > c) {
+			int t = i;
+			i = c;
+			c = t;
+		}
+		return (int) (inizioRiga(i, n) + c - i - 1);
+	}
+
+	/**
+	 * calcola l'indice del primo nodo dell'arco con chiave a, ovvero la riga in
+	 * cui si trova la chiave
+	 *
+	 * @param a (chiave dell'arco)
+	 * @param n (numero di nodi del grafo)
+	 * @return l'indice del primo nodo
+	 */
+	static int nodo1(int a, int n) {
+		double b = 2.0 * n - 1;
+		int i = (int) ((b - Math.sqrt(b * b - 8.0 * a)) / 2);
+		// corregge gli errori di arrotondamento della radice
+		while (i > 0 && inizioRiga(i, n) > a) {
+			i--;
+		}
+		while (inizioRiga(i + 1, n) <= a) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * calcola l'indice del secondo nodo dell'arco con chiave a
+	 *
+	 * @param a (chiave dell'arco)
+	 * @param n (numero di nodi del grafo)
+	 * @return l'indice del secondo nodo
+	 */
+	static int nodo2(int a, int n) {
+		int i = nodo1(a, n);
+		return (int) (a - inizioRiga(i, n) + i + 1);
+	}
+
+	/**
+	 * calcola la chiave del primo arco della riga i
+	 *
+	 * @param i (indice del nodo)
+	 * @param n (numero di nodi del grafo)
+	 * @return la chiave del primo arco della riga
+	 */
+	private static long inizioRiga(int i, int n) {
+		return (long) i * n - (long) i * (i + 1) / 2;
+	}
+
+	/**
+	 * ritorna il numero di nodi del grafo
+	 *
+	 * @return il numero di nodi
+	 */
+	int getN();
+
+	/**
+	 * ritorna il numero di archi memorizzati
+	 *
+	 * @return il numero di archi
+	 */
+	int getNumeroArchi();
+
+	/**
+	 * ritorna il valore dell'arco a
+	 *
+	 * @param a (chiave dell'arco)
+	 * @return il valore dell'arco
+	 */
+	int getValore(int a);
+
+	/**
+	 * ritorna la direzione dell'arco a (false da nodo1 a nodo2, true da nodo2 a
+	 * nodo1)
+	 *
+	 * @param a (chiave dell'arco)
+	 * @return la direzione dell'arco
+	 */
+	boolean getDirezione(int a);
+
+	/**
+	 * imposta valore e direzione dell'arco a aggiornando il bilancio dei due nodi
+	 *
+	 * @param a         (chiave dell'arco)
+	 * @param valore    (nuovo valore)
+	 * @param direzione (nuova direzione)
+	 */
+	void setValore(int a, int valore, boolean direzione);
+
+	/**
+	 * ritorna il flusso con segno dell'arco a, positivo se va da nodo1 a nodo2
+	 *
+	 * @param a (chiave dell'arco)
+	 * @return il flusso dell'arco
+	 */
+	default int getFlusso(int a) {
+		return getDirezione(a) ? -getValore(a) : getValore(a);
+	}
+
+	/**
+	 * imposta l'arco a partire dal flusso con segno, positivo se va da nodo1 a
+	 * nodo2
+	 *
+	 * @param a      (chiave dell'arco)
+	 * @param flusso (flusso con segno)
+	 */
+	default void setFlusso(int a, int flusso) {
+		setValore(a, Math.abs(flusso), flusso < 0);
+	}
+
+	/**
+	 * imposta il flusso dell'arco a solo se vale ancora quello atteso.  atomico
+	 * solo nelle memorie pensate per pi thread, nelle altre equivale a una
+	 * lettura seguita da una scrittura
+	 *
+	 * @param a      (chiave dell'arco)
+	 * @param atteso (flusso con segno atteso)
+	 * @param flusso (nuovo flusso con segno)
+	 * @return true se il flusso  stato modificato
+	 */
+	default boolean confrontaEImposta(int a, int atteso, int flusso) {
+		if (getFlusso(a) != atteso) {
+			return false;
+		}
+		setFlusso(a, flusso);
+		return true;
+	}
+
+	/**
+	 * ritorna il flusso che va dal nodo x al nodo y, negativo se va da y a x
+	 *
+	 * @param x (nodo di partenza)
+	 * @param y (nodo di arrivo)
+	 * @return il flusso con segno
+	 */
+	default int getFlussoTra(int x, int y) {
+		int f = getFlusso(indice(x, y, getN()));
+		return x < y ? f : -f;
+	}
+
+	/**
+	 * imposta il flusso che va dal nodo x al nodo y, negativo se va da y a x
+	 *
+	 * @param x      (nodo di partenza)
+	 * @param y      (nodo di arrivo)
+	 * @param flusso (flusso con segno)
+	 */
+	default void setFlussoTra(int x, int y, int flusso) {
+		setFlusso(indice(x, y, getN()), x < y ? flusso : -flusso);
+	}
+
+	/**
+	 * porta a 0 il flusso di tutti gli archi, e quindi anche tutti i bilanci
+	 */
+	default void azzera() {
+		for (int a = 0; a < getNumeroArchi(); a++) {
+			setValore(a, 0, false);
+		}
+	}
+
+	/**
+	 * ritorna il bilancio del nodo i, ovvero la somma degli ingressi meno la somma
+	 * delle uscite
+	 *
+	 * @param i (indice del nodo)
+	 * @return il bilancio del nodo
+	 */
+	int getBilancio(int i);
+
+	/**
+	 * ritorna l'indice del primo nodo dell'arco a
+	 *
+	 * @param a (chiave dell'arco)
+	 * @return l'indice del primo nodo
+	 */
+	default int getNodo1(int a) {
+		return nodo1(a, getN());
+	}
+
+	/**
+	 * ritorna l'indice del secondo nodo dell'arco a
+	 *
+	 * @param a (chiave dell'arco)
+	 * @return l'indice del secondo nodo
+	 */
+	default int getNodo2(int a) {
+		return nodo2(a, getN());
+	}
+
+}
@@ -0,0 +1,115 @@
+package grafo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * memoria degli archi in sola lettura che legge direttamente il record di un
+ * grafo dentro un file di {@link ArchivioGrafi} mappato in memoria, senza
+ * copiare i valori degli archi
+ */
+class MemoriaArchiMappata implements MemoriaArchi {
+	/**
+	 * numero di nodi del grafo
+	 */
+	private int n;
+	/**
+	 * numero di archi del grafo
+	 */
+	private int numeroArchi;
+	/**
+	 * byte usati per il valore di ogni arco
+	 */
+	private int larghezza;
+	/**
+	 * porzione del file con i valori seguiti dai bit delle direzioni
+	 */
+	private ByteBuffer dati;
+	/**
+	 * posizione del primo byte delle direzioni dentro dati
+	 */
+	private int inizioDirezioni;
+	/**
+	 * bilancio di ogni nodo, calcolato alla prima richiesta e pubblicato solo
+	 * quando  completo, cos i grafi dell'archivio si leggono da pi thread
+	 */
+	private volatile int[] bilanci;
+
+	/**
+	 * costruttore della memoria sopra ai dati di un record
+	 *
+	 * @param n         (numero di nodi)
+	 * @param larghezza (byte usati per ogni valore)
+	 * @param dati      (valori e direzioni del record)
+	 */
+	MemoriaArchiMappata(int n, int larghezza, ByteBuffer dati) {
+		this.n = n;
+		this.numeroArchi = (int) ((long) n * (n - 1) / 2);
+		this.larghezza = larghezza;
+		this.dati = dati;
+		this.inizioDirezioni = numeroArchi * larghezza;
+	}
+
+	@Override
+	public int getN() {
+		return n;
+	}
+
+	@Override
+	public int getNumeroArchi() {
+		return numeroArchi;
+	}
+
+	@Override
+	public int getValore(int a) {
+		switch (larghezza) {
+		case 1:
+			return dati.get(a) & 0xFF;
+		case 2:
+			return dati.getShort(a * 2) & 0xFFFF;
+		default:
+			return dati.getInt(a * 4);
+		}
+	}
+
+	@Override
+	public boolean getDirezione(int a) {
+		return (dati.get(inizioDirezioni + (a >>> 3)) & (1 << (a & 7))) != 0;
+	}
+
+	@Override
+	public void setValore(int a, int valore, boolean direzione) {
+		throw new UnsupportedOperationException("grafo letto da archivio in sola lettura");
+	}
+
+	@Override
+	public int getBilancio(int i) {
+		int[] b = bilanci;
+		if (b == null) {
+			b = calcolaBilanci();
+		}
+		return b[i];
+	}
+
+	/**
+	 * calcola il bilancio di tutti i nodi scorrendo gli archi una volta sola
+	 *
+	 * @return i bilanci calcolati
+	 */
+	private synchronized int[] calcolaBilanci() {
+		if (bilanci != null) {
+			return bilanci;
+		}
+		int[] b = new int[n];
+		int a = 0;
+		for (int i = 0; i < n; i++) {
+			for (int c = i + 1; c < n; c++) {
+				int flusso = getFlusso(a++);
+				b[i] -= flusso;
+				b[c] += flusso;
+			}
+		}
+		bilanci = b;
+		return b;
+	}
+
+}
@@ -0,0 +1,168 @@
+package grafo;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * registro facoltativo delle metriche di generazione all'interno del processo,
+ * alternativo alle registrazioni JFR. Finch non viene attivato le generazioni
+ * non misurano nulla; una volta attivo somma i dati di tutte le generazioni di
+ * tutti i thread senza sincronizzazione
+ */
+public class MetricheGenerazione {
+	/**
+	 * registro attivo, null se le metriche sono disattivate
+	 */
+	private static volatile MetricheGenerazione attive;
+
+	private final LongAdder generazioni = new LongAdder();
+	private final LongAdder scadute = new LongAdder();
+	private final LongAdder errori = new LongAdder();
+	private final LongAdder primaFase = new LongAdder();
+	private final LongAdder secondaFase = new LongAdder();
+	private final LongAccumulator durataMassima = new LongAccumulator(Math::max, 0);
+	private final LongAdder iterazioni = new LongAdder();
+	private final LongAccumulator arretramentoMassimo = new LongAccumulator(Math::max, 0);
+	private final LongAdder archiAlLimite = new LongAdder();
+	private final LongAdder triangoliScartati = new LongAdder();
+
+	/**
+	 * attiva il registro se non  gi attivo
+	 *
+	 * @return il registro attivo
+	 */
+	public static synchronized MetricheGenerazione attiva() {
+		if (attive == null) {
+			attive = new MetricheGenerazione();
+		}
+		return attive;
+	}
+
+	/**
+	 * disattiva il registro, le generazioni successive non vengono pi misurate
+	 */
+	public static synchronized void disattiva() {
+		attive = null;
+	}
+
+	/**
+	 * ritorna il registro attivo
+	 *
+	 * @return il registro, null se le metriche sono disattivate
+	 */
+	public static MetricheGenerazione getAttive() {
+		return attive;
+	}
+
+	/**
+	 * aggiunge i dati di una generazione
+	 *
+	 * @param evento (misura della generazione)
+	 */
+	void registra(EventoGenerazione evento) {
+		generazioni.increment();
+		if (EventoGenerazione.SCADENZA.equals(evento.esito)) {
+			scadute.increment();
+		} else if (EventoGenerazione.ERRORE.equals(evento.esito)) {
+			errori.increment();
+		}
+		primaFase.add(evento.primaFase);
+		secondaFase.add(evento.secondaFase);
+		durataMassima.accumulate(evento.primaFase + evento.secondaFase);
+		iterazioni.add(evento.iterazioni);
+		arretramentoMassimo.accumulate(evento.arretramentoMassimo);
+		archiAlLimite.add(evento.archiAlLimite);
+		triangoliScartati.add(evento.triangoliScartati);
+	}
+
+	/**
+	 * ritorna il numero di generazioni misurate, comprese quelle fallite
+	 *
+	 * @return il numero di generazioni
+	 */
+	public long getGenerazioni() {
+		return generazioni.sum();
+	}
+
+	/**
+	 * ritorna il numero di generazioni interrotte dalla scadenza
+	 *
+	 * @return il numero di generazioni scadute
+	 */
+	public long getScadute() {
+		return scadute.sum();
+	}
+
+	/**
+	 * ritorna il numero di generazioni finite con un'altra eccezione
+	 *
+	 * @return il numero di generazioni fallite
+	 */
+	public long getErrori() {
+		return errori.sum();
+	}
+
+	/**
+	 * ritorna il tempo totale passato nella prima fase
+	 *
+	 * @return i nanosecondi della prima fase
+	 */
+	public long getNanoPrimaFase() {
+		return primaFase.sum();
+	}
+
+	/**
+	 * ritorna il tempo totale passato nella seconda fase
+	 *
+	 * @return i nanosecondi della seconda fase
+	 */
+	public long getNanoSecondaFase() {
+		return secondaFase.sum();
+	}
+
+	/**
+	 * ritorna la durata della generazione pi lenta
+	 *
+	 * @return i nanosecondi della generazione pi lenta
+	 */
+	public long getNanoMassimi() {
+		return durataMassima.get();
+	}
+
+	/**
+	 * ritorna il totale dei giri di correzione o dei triangoli provati
+	 *
+	 * @return il numero di iterazioni
+	 */
+	public long getIterazioni() {
+		return iterazioni.sum();
+	}
+
+	/**
+	 * ritorna l'arretramento pi profondo del ciclo di correzione
+	 *
+	 * @return l'arretramento massimo
+	 */
+	public long getArretramentoMassimo() {
+		return arretramentoMassimo.get();
+	}
+
+	/**
+	 * ritorna il totale degli archi portati a 1 o a v da una correzione
+	 *
+	 * @return il numero di archi al limite
+	 */
+	public long getArchiAlLimite() {
+		return archiAlLimite.sum();
+	}
+
+	/**
+	 * ritorna il totale delle spinte scartate dal rimescolamento
+	 *
+	 * @return il numero di triangoli scartati
+	 */
+	public long getTriangoliScartati() {
+		return triangoliScartati.sum();
+	}
+
+}
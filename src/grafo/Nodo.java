@@ -1,34 +1,78 @@
 package grafo;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Nodo {
 	/**
-	 * nome indicativo del nodo
+	 * identificativo del nodo, indice denso assegnato dal grafo di appartenenza
+	 */
+	private final int id;
+	/**
+	 * nome indicativo del nodo, calcolato solo quando viene richiesto; due thread
+	 * possono calcolarlo insieme ma ottengono la stessa stringa
 	 */
 	private String colore;
 	/**
-	 * lista contenente le chiavi della mappa degli archi contenenti il nodo
+	 * grafo completo di appartenenza, da cui si calcolano gli archi del nodo; null
+	 * per i nodi creati al di fuori di un grafo
+	 */
+	private final Grafo grafo;
+	/**
+	 * chiavi degli archi contenenti il nodo, usate solo per i nodi che non
+	 * appartengono a un grafo completo; valide solo le prime numeroArchi
+	 */
+	private int[] indiciArchi;
+	/**
+	 * numero di chiavi valide in indiciArchi
 	 */
-	private ArrayList<Integer> indiciArchi = new ArrayList<Integer>();
+	private int numeroArchi;
 	/**
-	 * array contenente tutti i possibili nomi dei nodi in modo da poterli generare
-	 * in automatico (massimo 10 nodi)
+	 * identificativo del prossimo nodo creato con il costruttore senza argomenti,
+	 * usato solo dai nodi creati al di fuori di un grafo
 	 */
-	private static String[] colori = new String[] { "giallo", "verde", "rosso", "indaco", "viola", "magenta", "grigio",
-			"marrone", "rosa", "ciano" };
+	private static final AtomicInteger prossimo = new AtomicInteger();
 	/**
-	 * indice del colore attualmente disponibile, utilizzato per generare i nodi in
-	 * sequenza automatica
+	 * array contenente i nomi dei colori usati per generare in automatico i nomi
+	 * dei nodi, dopo il decimo nodo i colori vengono riutilizzati con un numero
 	 */
-	private static int coloreAtt = 0;
+	private static final String[] colori = new String[] { "giallo", "verde", "rosso", "indaco", "viola", "magenta",
+			"grigio", "marrone", "rosa", "ciano" };
 
 	/**
-	 * costruttroe del nodo che assegna in automatico nome disponibile per il nodo
+	 * costruttore del nodo che assegna in automatico il prossimo identificativo e
+	 * quindi il prossimo nome disponibile, la sequenza riparte con
+	 * {@link #reset()}
 	 */
 	public Nodo() {
-		colore = colori[coloreAtt];
-		coloreAtt++;
+		this(prossimo.getAndIncrement());
+	}
+
+	/**
+	 * costruttore del nodo con l'identificativo assegnato dal grafo
+	 * 
+	 * @param id (indice del nodo all'interno del grafo, 0 o positivo)
+	 * @throws IllegalArgumentException se id  negativo, -1  riservato al nodo
+	 *                                  vuoto
+	 */
+	public Nodo(int id) {
+		if (id < 0) {
+			throw new IllegalArgumentException("identificativo del nodo negativo: " + id);
+		}
+		this.grafo = null;
+		this.id = id;
+	}
+
+	/**
+	 * costruttore del nodo di un grafo completo, gli archi del nodo sono quelli
+	 * verso tutti gli altri nodi del grafo e non vengono memorizzati
+	 * 
+	 * @param grafo (grafo di appartenenza)
+	 * @param id    (indice del nodo all'interno del grafo)
+	 */
+	Nodo(Grafo grafo, int id) {
+		this.grafo = grafo;
+		this.id = id;
 	}
 
 	/**
@@ -38,51 +82,168 @@ public class Nodo {
 	 *          costruttori)
 	 */
 	public Nodo(boolean i) {
+		grafo = null;
+		id = -1;
 		colore = "Err";
 	}
 
+	/**
+	 * ritorna l'identificativo del nodo, -1 per il nodo vuoto
+	 * 
+	 * @return l'identificativo del nodo
+	 */
+	public int getId() {
+		return id;
+	}
+
 	/**
 	 * ritorna il nome/colore del nodo
 	 * 
 	 * @return il nome/colore del nodo
 	 */
 	public String getColore() {
+		if (colore == null) {
+			colore = nomeColore(id);
+		}
 		return colore;
 	}
 
 	/**
-	 * ritorna la lista delle chiavi degli archi appartenenti al nodo
+	 * genera il nome del nodo con l'identificativo dato, i primi dieci prendono il
+	 * nome dei colori mentre i successivi il colore seguito dal giro (giallo1,
+	 * verde1, ...)
+	 * 
+	 * @param id (identificativo del nodo)
+	 * @return il nome del nodo
+	 */
+	public static String nomeColore(int id) {
+		if (id < colori.length) {
+			return colori[id];
+		}
+		return colori[id % colori.length] + (id / colori.length);
+	}
+
+	/**
+	 * ritorna il numero di archi appartenenti al nodo
+	 * 
+	 * @return il numero di archi del nodo
+	 */
+	public int getGrado() {
+		if (grafo != null) {
+			return grafo.getN() - 1;
+		}
+		return numeroArchi;
+	}
+
+	/**
+	 * ritorna la chiave dell'f-esimo arco del nodo, gli archi sono ordinati in base
+	 * all'indice del nodo opposto. Nei grafi completi viene calcolata senza
+	 * memorizzare nulla
+	 * 
+	 * @param f (posizione dell'arco tra quelli del nodo)
+	 * @return la chiave dell'arco
+	 * @throws IndexOutOfBoundsException se f  negativo o non minore del grado
+	 */
+	public int getIndiceArco(int f) {
+		if (grafo != null) {
+			Objects.checkIndex(f, grafo.getN() - 1);
+			return MemoriaArchi.indice(id, f < id ? f : f + 1, grafo.getN());
+		}
+		return indiciArchi[Objects.checkIndex(f, numeroArchi)];
+	}
+
+	/**
+	 * ritorna le chiavi degli archi del nodo, nello stesso ordine di
+	 * {@link #getIndiceArco(int)}, senza creare Integer. Nei grafi completi le
+	 * chiavi vengono calcolate durante la visita
+	 * 
+	 * @return l'iteratore delle chiavi degli archi
+	 */
+	public PrimitiveIterator.OfInt iteratoreArchi() {
+		if (grafo == null) {
+			return Arrays.stream(indiciArchi == null ? new int[0] : indiciArchi, 0, numeroArchi).iterator();
+		}
+		int grado = getGrado();
+		return new PrimitiveIterator.OfInt() {
+			private int f = 0;
+
+			@Override
+			public boolean hasNext() {
+				return f < grado;
+			}
+
+			@Override
+			public int nextInt() {
+				if (f >= grado) {
+					throw new NoSuchElementException();
+				}
+				return getIndiceArco(f++);
+			}
+		};
+	}
+
+	/**
+	 * ritorna la lista delle chiavi degli archi appartenenti al nodo, calcolata a
+	 * ogni chiamata; le modifiche alla lista non cambiano il nodo
 	 * 
 	 * @return la lista delle chiavi degli archi appartenenti al nodo
+	 * @deprecated usare {@link #iteratoreArchi()} o {@link #getIndiceArco(int)},
+	 *             che non creano Integer
 	 */
+	@Deprecated
 	public ArrayList<Integer> getIndiciArchi() {
-		return indiciArchi;
+		ArrayList<Integer> indici = new ArrayList<Integer>(getGrado());
+		for (int f = 0; f < getGrado(); f++) {
+			indici.add(getIndiceArco(f));
+		}
+		return indici;
 	}
 
 	/**
-	 * metodo per l'aggiunta dell'indice di un arco
+	 * metodo per l'aggiunta dell'indice di un arco, vale solo per i nodi che non
+	 * appartengono a un grafo completo
 	 * 
 	 * @param i (indice del nuovo arco)
+	 * @throws UnsupportedOperationException se il nodo appartiene a un grafo
+	 *                                       completo, i cui archi sono fissi
 	 */
 	public void addArco(int i) {
-		indiciArchi.add(i);
+		if (grafo != null) {
+			throw new UnsupportedOperationException("gli archi di un grafo completo non si aggiungono");
+		}
+		if (indiciArchi == null) {
+			indiciArchi = new int[4];
+		} else if (numeroArchi == indiciArchi.length) {
+			indiciArchi = Arrays.copyOf(indiciArchi, 2 * numeroArchi);
+		}
+		indiciArchi[numeroArchi++] = i;
 	}
 
 	/**
-	 * metodo per la rimozione dell'arco indicato dall'indice i
+	 * metodo per la rimozione dell'arco in posizione i tra quelli del nodo, vale
+	 * solo per i nodi che non appartengono a un grafo completo
 	 * 
-	 * @param i (indice da rimuovere)
+	 * @param i (posizione dell'arco da rimuovere)
+	 * @throws UnsupportedOperationException se il nodo appartiene a un grafo
+	 *                                       completo, i cui archi sono fissi
 	 */
 	public void removeArco(int i) {
-		indiciArchi.remove(i);
+		if (grafo != null) {
+			throw new UnsupportedOperationException("gli archi di un grafo completo non si rimuovono");
+		}
+		Objects.checkIndex(i, numeroArchi);
+		System.arraycopy(indiciArchi, i + 1, indiciArchi, i, numeroArchi - i - 1);
+		numeroArchi--;
 	}
 
 	/**
 	 * metodo per il reset delle variabili statiche per la preparazione della nuova
-	 * partita
+	 * partita: il prossimo nodo creato con {@link #Nodo()} riparte dal primo
+	 * colore. Non cambia i nodi dei grafi, che hanno l'identificativo assegnato
+	 * dal grafo
 	 */
 	public void reset() {
-		coloreAtt = 0;
+		prossimo.set(0);
 	}
 
 }
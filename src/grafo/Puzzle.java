@@ -0,0 +1,164 @@
+package grafo;
+
+import java.util.*;
+
+/**
+ * partita pronta da giocare: un grafo in equilibrio con un insieme di archi
+ * nascosti il cui valore  ricavabile in un solo modo da quelli visibili. La
+ * difficolt  il numero di archi nascosti
+ */
+public class Puzzle {
+	/**
+	 * numero di grafi provati prima di rinunciare alla difficolt richiesta
+	 */
+	private static final int TENTATIVI = 50;
+	/**
+	 * grafo completo con tutti i valori
+	 */
+	private Grafo grafo;
+	/**
+	 * chiavi degli archi nascosti al giocatore
+	 */
+	private BitSet nascosti;
+
+	/**
+	 * costruttore del puzzle
+	 *
+	 * @param grafo    (grafo in equilibrio)
+	 * @param nascosti (chiavi degli archi nascosti)
+	 */
+	private Puzzle(Grafo grafo, BitSet nascosti) {
+		this.grafo = grafo;
+		this.nascosti = nascosti;
+	}
+
+	/**
+	 * crea un puzzle con la difficolt indicata. Gli archi di un grafo generato dal
+	 * seme vengono provati in ordine casuale e ognuno viene nascosto se la
+	 * soluzione resta unica; se non si arriva alla difficolt si riprova con un
+	 * altro grafo
+	 *
+	 * @param v          (potenza massima pietra)
+	 * @param n          (numero delle pietre)
+	 * @param difficolta (numero di archi da nascondere)
+	 * @param seme       (seme della generazione)
+	 * @return il puzzle, validato
+	 * @throws IllegalArgumentException se l'equilibrio non esiste o se non si
+	 *                                  trova un grafo con tanti archi nascosti
+	 */
+	public static Puzzle crea(int v, int n, int difficolta, long seme) {
+		controllaForma(v, n, difficolta);
+		SplittableRandom rnd = new SplittableRandom(seme);
+		EquilibrioValidator validatore = new EquilibrioValidator();
+		for (int t = 0; t < TENTATIVI; t++) {
+			Grafo grafo = new Grafo(v, n, rnd.nextLong());
+			if (!validatore.valida(grafo)) {
+				continue;
+			}
+			BitSet nascosti = nascondi(grafo, difficolta, rnd);
+			if (nascosti != null) {
+				return new Puzzle(grafo, nascosti);
+			}
+		}
+		throw new IllegalArgumentException(
+				"nessun puzzle con " + difficolta + " archi nascosti su " + n + " pietre con potenza massima " + v);
+	}
+
+	/**
+	 * controlla senza generare nulla che la forma possa avere dei puzzle: n
+	 * pietre con potenza massima v devono ammettere un equilibrio e la difficolt
+	 * deve stare tra 0 e il numero di archi
+	 *
+	 * @param v          (potenza massima pietra)
+	 * @param n          (numero delle pietre)
+	 * @param difficolta (numero di archi da nascondere)
+	 * @throws IllegalArgumentException se la forma non ammette puzzle
+	 */
+	static void controllaForma(int v, int n, int difficolta) {
+		if (n < 1) {
+			throw new IllegalArgumentException("numero di pietre non valido: " + n);
+		}
+		int massimo = GeneratoreCircolazione.massimoBase(n);
+		if (n > 1 && (massimo < 0 || v < massimo)) {
+			throw new IllegalArgumentException("impossibile equilibrare " + n + " pietre con potenza massima " + v);
+		}
+		long archi = (long) n * (n - 1) / 2;
+		if (difficolta < 0 || difficolta > archi) {
+			throw new IllegalArgumentException("difficolt " + difficolta + " fuori limite con " + n + " pietre");
+		}
+	}
+
+	/**
+	 * nasconde gli archi del grafo in ordine casuale finch la soluzione resta
+	 * unica
+	 *
+	 * @param grafo      (grafo in equilibrio)
+	 * @param difficolta (numero di archi da nascondere)
+	 * @param rnd        (sorgente dei numeri casuali)
+	 * @return gli archi nascosti, null se non si arriva alla difficolt
+	 */
+	private static BitSet nascondi(Grafo grafo, int difficolta, SplittableRandom rnd) {
+		int archi = grafo.getTabella().getNumeroArchi();
+		int[] ordine = new int[archi];
+		for (int a = 0; a < archi; a++) {
+			int k = rnd.nextInt(a + 1);
+			ordine[a] = ordine[k];
+			ordine[k] = a;
+		}
+		Risolutore risolutore = new Risolutore(grafo);
+		BitSet nascosti = new BitSet(archi);
+		int contati = 0;
+		for (int k = 0; k < archi && contati < difficolta; k++) {
+			nascosti.set(ordine[k]);
+			if (risolutore.isUnica(nascosti)) {
+				contati++;
+			} else {
+				nascosti.clear(ordine[k]);
+			}
+		}
+		return contati == difficolta ? nascosti : null;
+	}
+
+	/**
+	 * ritorna il grafo completo del puzzle
+	 *
+	 * @return il grafo con tutti i valori
+	 */
+	public Grafo getGrafo() {
+		return grafo;
+	}
+
+	/**
+	 * ritorna gli archi nascosti al giocatore
+	 *
+	 * @return una copia delle chiavi degli archi nascosti
+	 */
+	public BitSet getNascosti() {
+		return (BitSet) nascosti.clone();
+	}
+
+	/**
+	 * ritorna la difficolt del puzzle
+	 *
+	 * @return il numero di archi nascosti
+	 */
+	public int getDifficolta() {
+		return nascosti.cardinality();
+	}
+
+	/**
+	 * stima la memoria occupata da un puzzle: i flussi della matrice, i bilanci e
+	 * le viste degli archi e dei nodi
+	 *
+	 * @param v (potenza massima pietra)
+	 * @param n (numero delle pietre)
+	 * @return i byte stimati
+	 */
+	static long stimaByte(int v, int n) {
+		long archi = (long) n * (n - 1) / 2;
+		long flusso = v <= Short.MAX_VALUE ? 2 : 4;
+		// vista Arco con intestazione, riferimenti e chiave, pi il posto nell'array
+		return archi * (flusso + 40) + n * 64L + 256;
+	}
+
+}
@@ -0,0 +1,382 @@
+package grafo;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * scorta di puzzle gi generati e validati divisi per forma (v, n, difficolt).
+ * Ogni forma conserva al massimo un numero fissato di puzzle e tutte insieme
+ * non superano una memoria massima stimata: quando serve spazio vengono
+ * scartati i puzzle della forma usata meno di recente. Anche il numero di forme
+ * ricordate  limitato, oltre il limite si dimenticano quelle usate meno di
+ * recente. Quando la scorta di una forma scende sotto la met viene riempita in
+ * sottofondo sul pool indicato, quindi per le forme pi richieste la
+ * generazione esce dal percorso della richiesta. Le forme impossibili vengono
+ * rifiutate prima di creare la scorta e una forma il cui riempimento fallisce
+ * non viene pi riempita. Pu essere usata da pi thread
+ */
+public class PuzzleCache {
+	/**
+	 * numero massimo di forme ricordate
+	 */
+	static final int FORME_MASSIME = 256;
+	/**
+	 * numero massimo di puzzle conservati per ogni forma
+	 */
+	private int capacita;
+	/**
+	 * memoria massima stimata di tutti i puzzle conservati
+	 */
+	private long memoriaMassima;
+	/**
+	 * pool su cui vengono riempite le scorte
+	 */
+	private ForkJoinPool pool;
+	/**
+	 * scorte per forma, in ordine di uso dalla meno recente
+	 */
+	private LinkedHashMap<Forma, Scorta> scorte = new LinkedHashMap<Forma, Scorta>(16, 0.75f, true);
+	/**
+	 * memoria stimata dei puzzle conservati
+	 */
+	private long memoria;
+	/**
+	 * semi dei puzzle generati dalla scorta
+	 */
+	private SplittableRandom semi = new SplittableRandom();
+
+	// metriche
+
+	private final LongAdder colpi = new LongAdder();
+	private final LongAdder mancati = new LongAdder();
+	private final LongAdder riempimenti = new LongAdder();
+	private final LongAdder scartati = new LongAdder();
+	private final LongAdder ritardoTotale = new LongAdder();
+	private final LongAccumulator ritardoMassimo = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * forma dei puzzle di una scorta
+	 */
+	private static final class Forma {
+		private final int v;
+		private final int n;
+		private final int difficolta;
+
+		Forma(int v, int n, int difficolta) {
+			this.v = v;
+			this.n = n;
+			this.difficolta = difficolta;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Forma)) {
+				return false;
+			}
+			Forma f = (Forma) o;
+			return v == f.v && n == f.n && difficolta == f.difficolta;
+		}
+
+		@Override
+		public int hashCode() {
+			return (v * 31 + n) * 31 + difficolta;
+		}
+	}
+
+	/**
+	 * puzzle pronti di una forma e stato del suo riempimento
+	 */
+	private static final class Scorta {
+		private final ArrayDeque<Puzzle> pronti = new ArrayDeque<Puzzle>();
+		/**
+		 * true mentre un riempimento  in corso o in coda
+		 */
+		private boolean inRiempimento;
+		/**
+		 * true se un riempimento non  riuscito a generare puzzle, la scorta non
+		 * viene pi riempita
+		 */
+		private boolean fallita;
+		/**
+		 * true se la forma  stata dimenticata, un riempimento in corso si ferma
+		 */
+		private boolean dimenticata;
+	}
+
+	/**
+	 * costruttore della scorta che riempie sul pool comune
+	 *
+	 * @param capacita       (numero massimo di puzzle per ogni forma)
+	 * @param memoriaMassima (byte massimi stimati di tutti i puzzle conservati)
+	 */
+	public PuzzleCache(int capacita, long memoriaMassima) {
+		this(capacita, memoriaMassima, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * costruttore della scorta con il pool scelto
+	 *
+	 * @param capacita       (numero massimo di puzzle per ogni forma)
+	 * @param memoriaMassima (byte massimi stimati di tutti i puzzle conservati)
+	 * @param pool           (pool su cui riempire le scorte)
+	 */
+	public PuzzleCache(int capacita, long memoriaMassima, ForkJoinPool pool) {
+		if (capacita < 0 || memoriaMassima < 0) {
+			throw new IllegalArgumentException("capacit negativa: " + capacita + ", " + memoriaMassima);
+		}
+		this.capacita = capacita;
+		this.memoriaMassima = memoriaMassima;
+		this.pool = pool;
+	}
+
+	/**
+	 * ritorna un puzzle della forma richiesta, preso dalla scorta se ce n' uno
+	 * pronto e altrimenti generato subito. In entrambi i casi la scorta viene
+	 * riempita in sottofondo se  scesa sotto la met
+	 *
+	 * @param v          (potenza massima pietra)
+	 * @param n          (numero delle pietre)
+	 * @param difficolta (numero di archi nascosti)
+	 * @return il puzzle, che non resta nella scorta
+	 * @throws IllegalArgumentException se la forma non ammette puzzle
+	 */
+	public Puzzle prendi(int v, int n, int difficolta) {
+		Puzzle.controllaForma(v, n, difficolta);
+		Forma forma = new Forma(v, n, difficolta);
+		Puzzle puzzle;
+		long seme;
+		synchronized (this) {
+			Scorta scorta = scorta(forma);
+			puzzle = scorta.pronti.pollFirst();
+			if (puzzle != null) {
+				memoria -= Puzzle.stimaByte(v, n);
+			}
+			avviaRiempimento(forma, scorta);
+			seme = semi.nextLong();
+		}
+		if (puzzle != null) {
+			colpi.increment();
+			return puzzle;
+		}
+		mancati.increment();
+		return Puzzle.crea(v, n, difficolta, seme);
+	}
+
+	/**
+	 * riempie in sottofondo la scorta della forma indicata, per preparare le forme
+	 * pi richieste prima che arrivino le richieste
+	 *
+	 * @param v          (potenza massima pietra)
+	 * @param n          (numero delle pietre)
+	 * @param difficolta (numero di archi nascosti)
+	 * @throws IllegalArgumentException se la forma non ammette puzzle
+	 */
+	public void prepara(int v, int n, int difficolta) {
+		Puzzle.controllaForma(v, n, difficolta);
+		Forma forma = new Forma(v, n, difficolta);
+		synchronized (this) {
+			avviaRiempimento(forma, scorta(forma));
+		}
+	}
+
+	/**
+	 * ritorna la scorta della forma creandola se manca; oltre FORME_MASSIME forme
+	 * dimentica quelle usate meno di recente, liberando i loro puzzle e fermando
+	 * il loro riempimento. Va chiamato tenendo il lock
+	 *
+	 * @param forma (forma richiesta)
+	 * @return la scorta della forma
+	 */
+	private Scorta scorta(Forma forma) {
+		Scorta scorta = scorte.computeIfAbsent(forma, k -> new Scorta());
+		Iterator<Map.Entry<Forma, Scorta>> vecchie = scorte.entrySet().iterator();
+		while (scorte.size() > FORME_MASSIME && vecchie.hasNext()) {
+			Map.Entry<Forma, Scorta> voce = vecchie.next();
+			Scorta vecchia = voce.getValue();
+			if (vecchia == scorta) {
+				continue;
+			}
+			vecchia.dimenticata = true;
+			memoria -= vecchia.pronti.size() * Puzzle.stimaByte(voce.getKey().v, voce.getKey().n);
+			scartati.add(vecchia.pronti.size());
+			vecchie.remove();
+		}
+		return scorta;
+	}
+
+	/**
+	 * mette in coda il riempimento della scorta se  sotto la met e non ce n'
+	 * gi uno in corso, va chiamato tenendo il lock
+	 *
+	 * @param forma  (forma della scorta)
+	 * @param scorta (scorta da riempire)
+	 */
+	private void avviaRiempimento(Forma forma, Scorta scorta) {
+		if (scorta.inRiempimento || scorta.fallita || scorta.pronti.size() * 2 >= capacita) {
+			return;
+		}
+		scorta.inRiempimento = true;
+		long inizio = System.nanoTime();
+		pool.execute(() -> riempi(forma, scorta, inizio));
+	}
+
+	/**
+	 * genera puzzle per la scorta finch non  piena o finch la memoria non
+	 * basta pi, poi registra il ritardo dall'avvio del riempimento
+	 *
+	 * @param forma  (forma della scorta)
+	 * @param scorta (scorta da riempire)
+	 * @param inizio (istante in cui il riempimento  stato richiesto)
+	 */
+	private void riempi(Forma forma, Scorta scorta, long inizio) {
+		try {
+			while (true) {
+				long seme;
+				synchronized (this) {
+					if (scorta.dimenticata || scorta.pronti.size() >= capacita) {
+						break;
+					}
+					seme = semi.nextLong();
+				}
+				Puzzle puzzle = Puzzle.crea(forma.v, forma.n, forma.difficolta, seme);
+				synchronized (this) {
+					if (scorta.dimenticata || !conserva(forma, scorta, puzzle)) {
+						break;
+					}
+				}
+			}
+		} catch (RuntimeException e) {
+			// forma senza puzzle, le richieste ricevono l'errore generando sul posto
+			synchronized (this) {
+				scorta.fallita = true;
+			}
+		} finally {
+			synchronized (this) {
+				scorta.inRiempimento = false;
+			}
+			long ritardo = System.nanoTime() - inizio;
+			riempimenti.increment();
+			ritardoTotale.add(ritardo);
+			ritardoMassimo.accumulate(ritardo);
+		}
+	}
+
+	/**
+	 * aggiunge un puzzle alla scorta liberando memoria dalle forme usate meno di
+	 * recente, va chiamato tenendo il lock
+	 *
+	 * @param forma  (forma del puzzle)
+	 * @param scorta (scorta in cui aggiungerlo)
+	 * @param puzzle (puzzle da conservare)
+	 * @return false se la memoria non basta nemmeno scartando le altre forme
+	 */
+	private boolean conserva(Forma forma, Scorta scorta, Puzzle puzzle) {
+		long dimensione = Puzzle.stimaByte(forma.v, forma.n);
+		Iterator<Map.Entry<Forma, Scorta>> vecchie = scorte.entrySet().iterator();
+		while (memoria + dimensione > memoriaMassima && vecchie.hasNext()) {
+			Map.Entry<Forma, Scorta> voce = vecchie.next();
+			if (voce.getValue() == scorta) {
+				continue;
+			}
+			ArrayDeque<Puzzle> pronti = voce.getValue().pronti;
+			while (memoria + dimensione > memoriaMassima && !pronti.isEmpty()) {
+				pronti.pollLast();
+				memoria -= Puzzle.stimaByte(voce.getKey().v, voce.getKey().n);
+				scartati.increment();
+			}
+		}
+		if (memoria + dimensione > memoriaMassima) {
+			return false;
+		}
+		scorta.pronti.addLast(puzzle);
+		memoria += dimensione;
+		return true;
+	}
+
+	/**
+	 * ritorna il numero di puzzle pronti per la forma indicata. Serve al
+	 * monitoraggio e non conta come uso della forma: scorre le forme invece di
+	 * usare get, che la sposterebbe in fondo all'ordine di uso
+	 *
+	 * @param v          (potenza massima pietra)
+	 * @param n          (numero delle pietre)
+	 * @param difficolta (numero di archi nascosti)
+	 * @return il numero di puzzle pronti
+	 */
+	public synchronized int getPronti(int v, int n, int difficolta) {
+		Forma forma = new Forma(v, n, difficolta);
+		for (Map.Entry<Forma, Scorta> voce : scorte.entrySet()) {
+			if (voce.getKey().equals(forma)) {
+				return voce.getValue().pronti.size();
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * ritorna la memoria stimata dei puzzle conservati
+	 *
+	 * @return i byte stimati
+	 */
+	public synchronized long getMemoria() {
+		return memoria;
+	}
+
+	/**
+	 * ritorna il numero di richieste servite dalla scorta
+	 *
+	 * @return il numero di colpi
+	 */
+	public long getColpi() {
+		return colpi.sum();
+	}
+
+	/**
+	 * ritorna il numero di richieste che hanno dovuto generare il puzzle
+	 *
+	 * @return il numero di mancati
+	 */
+	public long getMancati() {
+		return mancati.sum();
+	}
+
+	/**
+	 * ritorna il numero di riempimenti conclusi
+	 *
+	 * @return il numero di riempimenti
+	 */
+	public long getRiempimenti() {
+		return riempimenti.sum();
+	}
+
+	/**
+	 * ritorna il numero di puzzle scartati per liberare memoria
+	 *
+	 * @return il numero di puzzle scartati
+	 */
+	public long getScartati() {
+		return scartati.sum();
+	}
+
+	/**
+	 * ritorna il ritardo medio dei riempimenti, dalla richiesta alla scorta piena
+	 *
+	 * @return i nanosecondi medi, 0 se non ci sono stati riempimenti
+	 */
+	public long getNanoRitardoMedio() {
+		long quanti = riempimenti.sum();
+		return quanti == 0 ? 0 : ritardoTotale.sum() / quanti;
+	}
+
+	/**
+	 * ritorna il ritardo del riempimento pi lento
+	 *
+	 * @return i nanosecondi del riempimento pi lento
+	 */
+	public long getNanoRitardoMassimo() {
+		return ritardoMassimo.get();
+	}
+
+}
@@ -0,0 +1,477 @@
+package grafo;
+
+import java.util.*;
+
+/**
+ * risolutore dei valori nascosti di un grafo in equilibrio: dati gli archi
+ * visibili e la direzione di tutti gli archi ricava i valori degli archi
+ * nascosti dalle equazioni di bilancio dei nodi e controlla se la soluzione 
+ * unica. Prima vengono ricavati uno alla volta gli archi dei nodi che hanno un
+ * solo arco sconosciuto, poi gli archi rimasti vengono trattati come un flusso
+ * con capacit tra 1 e v e i bilanci dei nodi come richieste, e una soluzione si
+ * trova con un flusso massimo. Due soluzioni differiscono per una circolazione,
+ * che si scompone in cicli, quindi la soluzione  unica se nel grafo residuo non
+ * c' un ciclo di almeno tre nodi. Non legge mai il valore degli archi nascosti
+ */
+public class Risolutore {
+	/**
+	 * grafo da risolvere, fornisce valori visibili e direzioni
+	 */
+	private Grafo grafo;
+	/**
+	 * numero di nodi del grafo
+	 */
+	private int n;
+	/**
+	 * valore massimo di un arco
+	 */
+	private int v;
+
+	// stato della risoluzione corrente
+
+	/**
+	 * valore di ogni arco, 0 se non ancora ricavato
+	 */
+	private int[] valori;
+	/**
+	 * somma dei flussi entranti gi noti di ogni nodo
+	 */
+	private int[] resti;
+	/**
+	 * archi nascosti incidenti a ogni nodo, in formato compresso
+	 */
+	private int[] inizioIncidenti;
+	private int[] incidenti;
+	/**
+	 * archi rimasti sconosciuti dopo la prima fase, con il nodo da cui escono e
+	 * quello in cui entrano
+	 */
+	private int[] restanti;
+	private int[] origini;
+	private int[] arrivi;
+
+	/**
+	 * costruttore del risolutore per il grafo dato
+	 *
+	 * @param grafo (grafo in equilibrio da risolvere)
+	 */
+	public Risolutore(Grafo grafo) {
+		this.grafo = grafo;
+		this.n = grafo.getN();
+		this.v = grafo.getV();
+	}
+
+	/**
+	 * controlla se i valori degli archi nascosti sono determinati in modo unico
+	 * da quelli visibili
+	 *
+	 * @param nascosti (chiavi degli archi nascosti)
+	 * @return true se esiste una sola soluzione
+	 */
+	public boolean isUnica(BitSet nascosti) {
+		return risolviInterno(nascosti) && senzaCicli();
+	}
+
+	/**
+	 * ricava i valori di tutti gli archi, se le soluzioni sono pi di una ritorna
+	 * una qualsiasi
+	 *
+	 * @param nascosti (chiavi degli archi nascosti)
+	 * @return il valore di ogni arco indicizzato per chiave, null se nessuna
+	 *         assegnazione tra 1 e v mette in equilibrio il grafo
+	 */
+	public int[] risolvi(BitSet nascosti) {
+		return risolviInterno(nascosti) ? valori : null;
+	}
+
+	/**
+	 * esegue tutte le fasi della risoluzione
+	 *
+	 * @param nascosti (chiavi degli archi nascosti)
+	 * @return true se  stata trovata una soluzione
+	 */
+	private boolean risolviInterno(BitSet nascosti) {
+		return prepara(nascosti) && sfoglia(nascosti) && distribuisci(nascosti);
+	}
+
+	/**
+	 * copia i valori visibili, calcola i resti dei nodi e costruisce l'elenco
+	 * compresso degli archi nascosti incidenti a ogni nodo
+	 *
+	 * @param nascosti (chiavi degli archi nascosti)
+	 * @return false se i valori visibili sono fuori limite
+	 */
+	private boolean prepara(BitSet nascosti) {
+		MemoriaArchi tabella = grafo.getTabella();
+		int m = tabella.getNumeroArchi();
+		valori = new int[m];
+		resti = new int[n];
+		inizioIncidenti = new int[n + 1];
+		for (int a = 0; a < m; a++) {
+			int i = MemoriaArchi.nodo1(a, n);
+			int c = MemoriaArchi.nodo2(a, n);
+			if (nascosti.get(a)) {
+				inizioIncidenti[i + 1]++;
+				inizioIncidenti[c + 1]++;
+				continue;
+			}
+			valori[a] = tabella.getValore(a);
+			if (valori[a] < 1 || valori[a] > v) {
+				return false;
+			}
+			int flusso = tabella.getDirezione(a) ? -valori[a] : valori[a];
+			resti[i] -= flusso;
+			resti[c] += flusso;
+		}
+		for (int i = 0; i < n; i++) {
+			inizioIncidenti[i + 1] += inizioIncidenti[i];
+		}
+		incidenti = new int[inizioIncidenti[n]];
+		int[] pos = Arrays.copyOf(inizioIncidenti, n);
+		for (int a = nascosti.nextSetBit(0); a >= 0 && a < m; a = nascosti.nextSetBit(a + 1)) {
+			incidenti[pos[MemoriaArchi.nodo1(a, n)]++] = a;
+			incidenti[pos[MemoriaArchi.nodo2(a, n)]++] = a;
+		}
+		return true;
+	}
+
+	/**
+	 * ricava uno alla volta gli archi dei nodi che hanno un solo arco nascosto
+	 * ancora sconosciuto, il cui valore  fissato dal bilancio del nodo
+	 *
+	 * @param nascosti (chiavi degli archi nascosti)
+	 * @return false se un valore ricavato  fuori limite o un nodo senza archi
+	 *         sconosciuti non  in equilibrio
+	 */
+	private boolean sfoglia(BitSet nascosti) {
+		int[] gradi = new int[n];
+		int[] coda = new int[n];
+		int testa = 0;
+		int fine = 0;
+		for (int i = 0; i < n; i++) {
+			gradi[i] = inizioIncidenti[i + 1] - inizioIncidenti[i];
+			if (gradi[i] == 1) {
+				coda[fine++] = i;
+			}
+		}
+		while (testa < fine) {
+			int i = coda[testa++];
+			if (gradi[i] != 1) {
+				continue;
+			}
+			int a = sconosciuto(i);
+			int valore = -resti[i] * coefficiente(i, a);
+			if (valore < 1 || valore > v) {
+				return false;
+			}
+			fissa(a, valore);
+			int j = MemoriaArchi.nodo1(a, n) == i ? MemoriaArchi.nodo2(a, n) : MemoriaArchi.nodo1(a, n);
+			gradi[i]--;
+			if (--gradi[j] == 1) {
+				coda[fine++] = j;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			if (gradi[i] == 0 && resti[i] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * ricava gli archi rimasti con un flusso massimo: ogni arco ha gi il valore
+	 * minimo 1 e pu portare altri v-1, i nodi a cui manca flusso in uscita sono
+	 * collegati alla sorgente e quelli a cui manca flusso in entrata al pozzo
+	 *
+	 * @param nascosti (chiavi degli archi nascosti)
+	 * @return false se il flusso massimo non soddisfa tutti i nodi
+	 */
+	private boolean distribuisci(BitSet nascosti) {
+		int m = valori.length;
+		int numero = 0;
+		for (int a = nascosti.nextSetBit(0); a >= 0 && a < m; a = nascosti.nextSetBit(a + 1)) {
+			if (valori[a] == 0) {
+				numero++;
+			}
+		}
+		restanti = new int[numero];
+		origini = new int[numero];
+		arrivi = new int[numero];
+		int[] eccessi = resti.clone();
+		int r = 0;
+		for (int a = nascosti.nextSetBit(0); a >= 0 && a < m; a = nascosti.nextSetBit(a + 1)) {
+			if (valori[a] != 0) {
+				continue;
+			}
+			int i = MemoriaArchi.nodo1(a, n);
+			int c = MemoriaArchi.nodo2(a, n);
+			boolean inverso = grafo.getTabella().getDirezione(a);
+			restanti[r] = a;
+			origini[r] = inverso ? c : i;
+			arrivi[r] = inverso ? i : c;
+			eccessi[origini[r]]--;
+			eccessi[arrivi[r]]++;
+			r++;
+		}
+		if (numero == 0) {
+			return true;
+		}
+
+		// rete: un arco per ogni arco rimasto pi quelli da sorgente e verso il pozzo,
+		// ogni arco  seguito dal suo inverso
+		int sorgente = n;
+		int pozzo = n + 1;
+		int totale = 2 * (numero + n);
+		int[] capacita = new int[totale];
+		int[] verso = new int[totale];
+		int[] successivo = new int[totale];
+		int[] primo = new int[n + 2];
+		Arrays.fill(primo, -1);
+		int archiRete = 0;
+		int richiesta = 0;
+		for (r = 0; r < numero; r++) {
+			archiRete = collega(origini[r], arrivi[r], v - 1, archiRete, capacita, verso, successivo, primo);
+		}
+		for (int i = 0; i < n; i++) {
+			if (eccessi[i] > 0) {
+				archiRete = collega(sorgente, i, eccessi[i], archiRete, capacita, verso, successivo, primo);
+				richiesta += eccessi[i];
+			} else if (eccessi[i] < 0) {
+				archiRete = collega(i, pozzo, -eccessi[i], archiRete, capacita, verso, successivo, primo);
+			}
+		}
+
+		// cammini aumentanti pi corti finch arrivano al pozzo
+		int[] arcoPadre = new int[n + 2];
+		int[] coda = new int[n + 2];
+		int mandato = 0;
+		while (mandato < richiesta) {
+			Arrays.fill(arcoPadre, -1);
+			arcoPadre[sorgente] = totale;
+			int testa = 0;
+			int fine = 0;
+			coda[fine++] = sorgente;
+			while (testa < fine && arcoPadre[pozzo] < 0) {
+				int u = coda[testa++];
+				for (int e = primo[u]; e >= 0; e = successivo[e]) {
+					if (capacita[e] > 0 && arcoPadre[verso[e]] < 0) {
+						arcoPadre[verso[e]] = e;
+						coda[fine++] = verso[e];
+					}
+				}
+			}
+			if (arcoPadre[pozzo] < 0) {
+				return false;
+			}
+			int aumento = Integer.MAX_VALUE;
+			for (int x = pozzo; x != sorgente; x = verso[arcoPadre[x] ^ 1]) {
+				aumento = Math.min(aumento, capacita[arcoPadre[x]]);
+			}
+			for (int x = pozzo; x != sorgente; x = verso[arcoPadre[x] ^ 1]) {
+				capacita[arcoPadre[x]] -= aumento;
+				capacita[arcoPadre[x] ^ 1] += aumento;
+			}
+			mandato += aumento;
+		}
+		for (r = 0; r < numero; r++) {
+			// la capacit dell'inverso  il flusso passato sull'arco
+			valori[restanti[r]] = 1 + capacita[2 * r + 1];
+		}
+		return true;
+	}
+
+	/**
+	 * aggiunge alla rete l'arco da u a w e il suo inverso con capacit 0
+	 *
+	 * @param u          (nodo di partenza)
+	 * @param w          (nodo di arrivo)
+	 * @param c          (capacit dell'arco)
+	 * @param e          (posizione del nuovo arco)
+	 * @param capacita   (capacit residua di ogni arco)
+	 * @param verso      (nodo di arrivo di ogni arco)
+	 * @param successivo (arco successivo uscente dallo stesso nodo)
+	 * @param primo      (primo arco uscente da ogni nodo)
+	 * @return la posizione libera dopo i due archi aggiunti
+	 */
+	private static int collega(int u, int w, int c, int e, int[] capacita, int[] verso, int[] successivo,
+			int[] primo) {
+		capacita[e] = c;
+		verso[e] = w;
+		successivo[e] = primo[u];
+		primo[u] = e;
+		verso[e + 1] = u;
+		successivo[e + 1] = primo[w];
+		primo[w] = e + 1;
+		return e + 2;
+	}
+
+	/**
+	 * controlla che nel grafo residuo della soluzione trovata non ci sia un ciclo
+	 * di almeno tre nodi, lungo il quale si potrebbe spostare un'unit ottenendo
+	 * un'altra soluzione. Un arco pu crescere se vale meno di v e calare se vale
+	 * pi di 1; dentro ogni componente fortemente connessa un ciclo del genere
+	 * manca solo se tutti gli archi vanno in entrambi i versi e formano un albero
+	 *
+	 * @return true se non ci sono cicli, ovvero se la soluzione  unica
+	 */
+	private boolean senzaCicli() {
+		int numero = restanti.length;
+		int[] inizio = new int[n + 1];
+		for (int r = 0; r < numero; r++) {
+			int x = valori[restanti[r]];
+			if (x < v) {
+				inizio[origini[r] + 1]++;
+			}
+			if (x > 1) {
+				inizio[arrivi[r] + 1]++;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			inizio[i + 1] += inizio[i];
+		}
+		int[] adiacenti = new int[inizio[n]];
+		int[] pos = Arrays.copyOf(inizio, n);
+		for (int r = 0; r < numero; r++) {
+			int x = valori[restanti[r]];
+			if (x < v) {
+				adiacenti[pos[origini[r]]++] = arrivi[r];
+			}
+			if (x > 1) {
+				adiacenti[pos[arrivi[r]]++] = origini[r];
+			}
+		}
+		int[] componenti = componentiForti(inizio, adiacenti);
+		int[] dimensioni = new int[n];
+		int[] coppie = new int[n];
+		for (int i = 0; i < n; i++) {
+			dimensioni[componenti[i]]++;
+		}
+		for (int r = 0; r < numero; r++) {
+			int k = componenti[origini[r]];
+			if (k != componenti[arrivi[r]]) {
+				continue;
+			}
+			int x = valori[restanti[r]];
+			if (x == 1 || x == v) {
+				// arco a senso unico dentro una componente: chiude un ciclo lungo
+				return false;
+			}
+			coppie[k]++;
+		}
+		for (int k = 0; k < n; k++) {
+			if (dimensioni[k] > 0 && coppie[k] != dimensioni[k] - 1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * calcola le componenti fortemente connesse con l'algoritmo di Tarjan senza
+	 * ricorsione
+	 *
+	 * @param inizio    (posizione dei primi adiacenti di ogni nodo)
+	 * @param adiacenti (nodi raggiungibili da ogni nodo, in formato compresso)
+	 * @return la componente di ogni nodo
+	 */
+	private int[] componentiForti(int[] inizio, int[] adiacenti) {
+		int[] ordine = new int[n];
+		int[] basso = new int[n];
+		int[] componenti = new int[n];
+		int[] prossimo = new int[n];
+		int[] pila = new int[n];
+		int[] chiamate = new int[n];
+		boolean[] inPila = new boolean[n];
+		Arrays.fill(ordine, -1);
+		int contatore = 0;
+		int cima = 0;
+		int numeroComponenti = 0;
+		for (int s = 0; s < n; s++) {
+			if (ordine[s] >= 0) {
+				continue;
+			}
+			int profondita = 0;
+			ordine[s] = basso[s] = contatore++;
+			pila[cima++] = s;
+			inPila[s] = true;
+			prossimo[s] = inizio[s];
+			chiamate[profondita++] = s;
+			while (profondita > 0) {
+				int u = chiamate[profondita - 1];
+				if (prossimo[u] < inizio[u + 1]) {
+					int w = adiacenti[prossimo[u]++];
+					if (ordine[w] < 0) {
+						ordine[w] = basso[w] = contatore++;
+						pila[cima++] = w;
+						inPila[w] = true;
+						prossimo[w] = inizio[w];
+						chiamate[profondita++] = w;
+					} else if (inPila[w]) {
+						basso[u] = Math.min(basso[u], ordine[w]);
+					}
+					continue;
+				}
+				if (basso[u] == ordine[u]) {
+					int w;
+					do {
+						w = pila[--cima];
+						inPila[w] = false;
+						componenti[w] = numeroComponenti;
+					} while (w != u);
+					numeroComponenti++;
+				}
+				profondita--;
+				if (profondita > 0) {
+					int p = chiamate[profondita - 1];
+					basso[p] = Math.min(basso[p], basso[u]);
+				}
+			}
+		}
+		return componenti;
+	}
+
+	/**
+	 * ritorna il primo arco nascosto del nodo i non ancora ricavato
+	 *
+	 * @param i (indice del nodo)
+	 * @return la chiave dell'arco, -1 se non ce ne sono
+	 */
+	private int sconosciuto(int i) {
+		for (int p = inizioIncidenti[i]; p < inizioIncidenti[i + 1]; p++) {
+			if (valori[incidenti[p]] == 0) {
+				return incidenti[p];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * ritorna di quanto cresce il flusso entrante nel nodo i per ogni unit di
+	 * valore dell'arco a, secondo la direzione dell'arco
+	 *
+	 * @param i (indice del nodo)
+	 * @param a (chiave dell'arco)
+	 * @return +1 se l'arco entra nel nodo, -1 se esce
+	 */
+	private int coefficiente(int i, int a) {
+		boolean entraInNodo2 = !grafo.getTabella().getDirezione(a);
+		boolean nodo2 = MemoriaArchi.nodo2(a, n) == i;
+		return entraInNodo2 == nodo2 ? 1 : -1;
+	}
+
+	/**
+	 * fissa il valore di un arco nascosto aggiornando i resti dei suoi nodi
+	 *
+	 * @param a      (chiave dell'arco)
+	 * @param valore (valore ricavato)
+	 */
+	private void fissa(int a, int valore) {
+		valori[a] = valore;
+		int i = MemoriaArchi.nodo1(a, n);
+		int c = MemoriaArchi.nodo2(a, n);
+		resti[i] += coefficiente(i, a) * valore;
+		resti[c] += coefficiente(c, a) * valore;
+	}
+
+}
@@ -0,0 +1,34 @@
+package grafo;
+
+/**
+ * eccezione lanciata da un generatore quando supera il tempo concesso per
+ * creare l'equilibrio, il grafo resta in uno stato parziale e va rigenerato
+ */
+public class ScadenzaSuperataException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * costruttore dell'eccezione
+	 * 
+	 * @param messaggio (descrizione della generazione interrotta)
+	 */
+	public ScadenzaSuperataException(String messaggio) {
+		super(messaggio);
+	}
+
+	/**
+	 * lancia l'eccezione se la scadenza  stata superata, usato dai generatori
+	 * per controllare il tempo tra un passo e l'altro
+	 * 
+	 * @param scadenza (istante limite secondo System.nanoTime())
+	 * @param grafo    (grafo in generazione)
+	 */
+	static void controlla(long scadenza, Grafo grafo) {
+		if (System.nanoTime() - scadenza > 0) {
+			throw new ScadenzaSuperataException(
+					"tempo scaduto generando " + grafo.getN() + " pietre con potenza massima " + grafo.getV());
+		}
+	}
+
+}
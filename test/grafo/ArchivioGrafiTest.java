@@ -0,0 +1,85 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * test dell'archivio di grafi in sola lettura: grafi riletti uguali a quelli
+ * scritti e intestazioni non valide
+ */
+class ArchivioGrafiTest {
+
+	@TempDir
+	Path cartella;
+
+	@Test
+	void archivioRiletto() throws IOException {
+		for (int v : new int[] { 100, 1000, 100_000 }) {
+			List<Grafo> grafi = new GrafoBatchGenerator(v, 12).genera(5, v);
+			Path file = cartella.resolve("archivio" + v);
+			ArchivioGrafi.scrivi(file, grafi);
+			try (ArchivioGrafi archivio = ArchivioGrafi.apri(file)) {
+				assertEquals(5, archivio.getNumeroGrafi());
+				assertEquals(12, archivio.getN());
+				assertEquals(v, archivio.getV());
+				for (int k = 0; k < 5; k++) {
+					Grafo letto = archivio.getGrafo(k);
+					assertEquals(grafi.get(k).getSeme(), letto.getSeme());
+					for (int a = 0; a < letto.getArchi().size(); a++) {
+						assertEquals(grafi.get(k).getArco(a).getFlusso(), letto.getArco(a).getFlusso());
+					}
+					assertTrue(letto.isEquilibrato());
+				}
+				assertThrows(UnsupportedOperationException.class, () -> archivio.getGrafo(0).getArco(0).setValore(1, false));
+				assertThrows(IndexOutOfBoundsException.class, () -> archivio.getGrafo(5));
+			}
+		}
+	}
+
+	@Test
+	void archivioConIntestazioneNonValida() throws IOException {
+		Path file = cartella.resolve("rotto");
+		ArchivioGrafi.scrivi(file, List.of(new Grafo(10, 5, 1L)));
+		byte[] byteFile = Files.readAllBytes(file);
+		ByteBuffer.wrap(byteFile).putInt(4, -1);
+		Files.write(file, byteFile);
+		assertThrows(IOException.class, () -> ArchivioGrafi.apri(file));
+		Files.write(file, new byte[] { 1, 2, 3 });
+		assertThrows(IOException.class, () -> ArchivioGrafi.apri(file));
+	}
+
+	@Test
+	void archivioVuotoRiletto() throws IOException {
+		Path file = cartella.resolve("vuoto");
+		ArchivioGrafi.scrivi(file, List.of());
+		try (ArchivioGrafi archivio = ArchivioGrafi.apri(file)) {
+			assertEquals(0, archivio.getNumeroGrafi());
+			assertEquals(0, archivio.getN());
+			assertEquals(0, archivio.getV());
+			assertThrows(IndexOutOfBoundsException.class, () -> archivio.getGrafo(0));
+		}
+		// un archivio vuoto non pu avere record
+		Files.write(file, new byte[8], StandardOpenOption.APPEND);
+		assertThrows(IOException.class, () -> ArchivioGrafi.apri(file));
+	}
+
+	@Test
+	void archivioChiuso() throws IOException {
+		Path file = cartella.resolve("chiuso");
+		ArchivioGrafi.scrivi(file, List.of(new Grafo(10, 5, 1L), new Grafo(10, 5, 2L)));
+		ArchivioGrafi archivio = ArchivioGrafi.apri(file);
+		Grafo letto = archivio.getGrafo(1);
+		archivio.close();
+		assertThrows(IllegalStateException.class, () -> archivio.getGrafo(0));
+		assertEquals(2L, letto.getSeme());
+		assertTrue(letto.isEquilibrato());
+	}
+
+}
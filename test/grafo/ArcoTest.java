@@ -0,0 +1,59 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test degli archi: valore e direzione scritti e riletti, archi a 0 senza
+ * direzione, valori negativi rifiutati e arco vuoto
+ */
+class ArcoTest {
+
+	@Test
+	void valoreEDirezione() {
+		Grafo grafo = new Grafo(20, 6, 1L);
+		Arco arco = grafo.getArco(4);
+		arco.setValore(7, true);
+		assertEquals(7, arco.getValore());
+		assertTrue(arco.getDirezione());
+		assertEquals(-7, arco.getFlusso());
+		arco.setValore(7, false);
+		assertFalse(arco.getDirezione());
+		assertEquals(7, grafo.getTabella().getFlusso(4));
+		Arco libero = new Arco(new Nodo(), new Nodo());
+		libero.setValore(3, true);
+		assertEquals(3, libero.getValore());
+		assertTrue(libero.getDirezione());
+	}
+
+	@Test
+	void arcoAZeroSenzaDirezione() {
+		Arco arco = new Grafo(20, 6, 1L).getArco(2);
+		arco.setValore(0, true);
+		assertEquals(0, arco.getValore());
+		assertFalse(arco.getDirezione());
+	}
+
+	@Test
+	void valoriNegativiRifiutati() {
+		Grafo grafo = new Grafo(20, 6, 1L);
+		Arco arco = grafo.getArco(3);
+		int prima = arco.getFlusso();
+		assertThrows(IllegalArgumentException.class, () -> arco.setValore(-2, false));
+		assertThrows(IllegalArgumentException.class,
+				() -> arco.compareAndSet(arco.getValore(), arco.getDirezione(), -2, false));
+		assertEquals(prima, arco.getFlusso());
+		assertTrue(grafo.isEquilibrato());
+	}
+
+	@Test
+	void arcoVuoto() {
+		Arco vuoto = new Grafo(20, 6, 1L).getArco(-1);
+		assertTrue(vuoto.isVuoto());
+		vuoto.setValore(4, true);
+		assertEquals(0, vuoto.getValore());
+		assertFalse(vuoto.compareAndSet(0, false, 4, true));
+	}
+
+}
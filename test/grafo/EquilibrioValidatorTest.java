@@ -0,0 +1,53 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test del validatore: bilanci ricalcolati dai flussi, grafi fuori equilibrio
+ * e archi fuori dai limiti, con flussi short e int
+ */
+class EquilibrioValidatorTest {
+
+	@Test
+	void bilanciRicalcolatiUgualiAQuelliTenuti() {
+		EquilibrioValidator validatore = new EquilibrioValidator();
+		for (int v : new int[] { 50, 100_000 }) {
+			Grafo grafo = new Grafo(v, 25, 4L);
+			MemoriaArchi tabella = grafo.getTabella();
+			tabella.setFlusso(7, tabella.getFlusso(7) == v ? v - 1 : tabella.getFlusso(7) + 1);
+			int[] bilanci = validatore.calcolaBilanci(grafo);
+			for (int i = 0; i < 25; i++) {
+				assertEquals(grafo.getBilancio(i), bilanci[i], "v=" + v + " nodo " + i);
+			}
+			assertFalse(validatore.valida(grafo));
+		}
+	}
+
+	@Test
+	void archiFuoriDaiLimitiNonValidi() {
+		EquilibrioValidator validatore = new EquilibrioValidator();
+		Grafo nullo = new Grafo(10, 6, 1L);
+		nullo.getTabella().azzera();
+		// tutti i bilanci sono a 0 ma gli archi valgono 0
+		assertTrue(nullo.isEquilibrato());
+		assertFalse(validatore.valida(nullo));
+		assertTrue(validatore.valida(new Grafo(10, 6, 1L)));
+	}
+
+	@Test
+	void validaTuttiRitornaLePosizioni() {
+		List<Grafo> grafi = new ArrayList<Grafo>();
+		for (long seme = 0; seme < 5; seme++) {
+			grafi.add(new Grafo(10, 8, seme));
+		}
+		grafi.get(3).getTabella().setFlusso(0, 0);
+		BitSet nonValidi = new EquilibrioValidator().validaTutti(grafi);
+		assertEquals(1, nonValidi.cardinality());
+		assertTrue(nonValidi.get(3));
+	}
+
+}
@@ -0,0 +1,56 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test del generatore a circolazione: equilibrio e limiti dei valori su molte
+ * forme diverse, riproducibilit a partire dal seme
+ */
+class GeneratoreCircolazioneTest {
+
+	@Test
+	void generaSempreGrafiValidi() {
+		EquilibrioValidator validatore = new EquilibrioValidator();
+		for (int n = 3; n <= 40; n++) {
+			int massimo = GeneratoreCircolazione.massimoBase(n);
+			for (int v : new int[] { massimo, massimo + 1, 3 * massimo }) {
+				for (long seme = 0; seme < 5; seme++) {
+					Grafo grafo = new Grafo(v, n, seme);
+					assertTrue(grafo.isEquilibrato(), "n=" + n + " v=" + v + " seme=" + seme);
+					assertTrue(validatore.valida(grafo), "n=" + n + " v=" + v + " seme=" + seme);
+				}
+			}
+		}
+	}
+
+	@Test
+	void stessoSemeStessoGrafo() {
+		Grafo a = new Grafo(20, 30, 42L);
+		Grafo b = new Grafo(20, 30, 42L);
+		Grafo c = new Grafo(20, 30, 43L);
+		boolean diverso = false;
+		for (int k = 0; k < a.getArchi().size(); k++) {
+			assertEquals(a.getArco(k).getFlusso(), b.getArco(k).getFlusso());
+			diverso |= a.getArco(k).getFlusso() != c.getArco(k).getFlusso();
+		}
+		assertTrue(diverso);
+	}
+
+	@Test
+	void greedyRiproducibileDalSeme() {
+		Grafo a = new Grafo(10, 15, 5L, new GeneratoreGreedy());
+		Grafo b = new Grafo(10, 15, 5L, new GeneratoreGreedy());
+		for (int k = 0; k < a.getArchi().size(); k++) {
+			assertEquals(a.getArco(k).getFlusso(), b.getArco(k).getFlusso());
+		}
+	}
+
+	@Test
+	void formeImpossibiliRifiutate() {
+		assertThrows(IllegalArgumentException.class, () -> new Grafo(10, 2, 1L));
+		assertThrows(IllegalArgumentException.class, () -> new Grafo(1, 4, 1L));
+	}
+
+}
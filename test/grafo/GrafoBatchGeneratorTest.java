@@ -0,0 +1,42 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test del generatore in blocco: grafi tutti validi e stessi grafi a parit di
+ * seme, qualunque sia il numero di thread
+ */
+class GrafoBatchGeneratorTest {
+
+	@Test
+	void batchTuttiValidi() {
+		List<Grafo> grafi = new GrafoBatchGenerator(10, 9).genera(8, 3L);
+		assertEquals(8, grafi.size());
+		assertTrue(new EquilibrioValidator().validaTutti(grafi).isEmpty());
+	}
+
+	@Test
+	void stessoSemeStessiGrafi() {
+		ForkJoinPool uno = new ForkJoinPool(1);
+		ForkJoinPool quattro = new ForkJoinPool(4);
+		try {
+			List<Grafo> a = new GrafoBatchGenerator(10, 9, new GeneratoreCircolazione(), uno).genera(16, 5L);
+			List<Grafo> b = new GrafoBatchGenerator(10, 9, new GeneratoreCircolazione(), quattro).genera(16, 5L);
+			for (int k = 0; k < 16; k++) {
+				assertEquals(a.get(k).getSeme(), b.get(k).getSeme());
+				for (int c = 0; c < a.get(k).getArchi().size(); c++) {
+					assertEquals(a.get(k).getArco(c).getFlusso(), b.get(k).getArco(c).getFlusso());
+				}
+			}
+		} finally {
+			uno.shutdown();
+			quattro.shutdown();
+		}
+	}
+
+}
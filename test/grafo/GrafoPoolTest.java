@@ -0,0 +1,77 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test del riuso dei grafi: rigenerazione sulla stessa memoria, deposito con
+ * capacit limitata e grafi rifiutati
+ */
+class GrafoPoolTest {
+
+	@Test
+	void grafoRiusatoUgualeAUnoNuovo() {
+		GrafoPool pool = new GrafoPool(2);
+		Grafo primo = pool.prendi(7, 9, 1L);
+		pool.restituisci(primo);
+		assertEquals(1, pool.getLiberi(7, 9));
+		Grafo secondo = pool.prendi(7, 9, 5L);
+		assertSame(primo, secondo);
+		assertEquals(0, pool.getLiberi(7, 9));
+		Grafo atteso = new Grafo(7, 9, 5L);
+		for (int a = 0; a < atteso.getArchi().size(); a++) {
+			assertEquals(atteso.getArco(a).getFlusso(), secondo.getArco(a).getFlusso());
+		}
+	}
+
+	@Test
+	void regenerateRiproduceIlSeme() {
+		Grafo grafo = new Grafo(15, 12, 1L);
+		grafo.regenerate(7L);
+		Grafo atteso = new Grafo(15, 12, 7L);
+		for (int k = 0; k < atteso.getArchi().size(); k++) {
+			assertEquals(atteso.getArco(k).getFlusso(), grafo.getArco(k).getFlusso());
+		}
+	}
+
+	@Test
+	void grafiGreedyRigeneratiInEquilibrio() {
+		GrafoPool pool = new GrafoPool(4);
+		for (long seme = 0; seme < 4; seme++) {
+			pool.restituisci(new Grafo(10, 12, seme, new GeneratoreGreedy()));
+		}
+		for (long seme = 0; seme < 40; seme++) {
+			Grafo grafo = pool.prendi(10, 12, seme);
+			assertTrue(grafo.isEquilibrato(), "seme " + seme);
+			pool.restituisci(grafo);
+		}
+	}
+
+	@Test
+	void capacitaRispettata() {
+		GrafoPool pool = new GrafoPool(2);
+		for (int k = 0; k < 5; k++) {
+			pool.restituisci(new Grafo(7, 9, (long) k));
+		}
+		assertEquals(2, pool.getLiberi(7, 9));
+		assertEquals(0, pool.getLiberi(7, 10));
+	}
+
+	@Test
+	void grafiNonRiciclabiliRifiutati() {
+		GrafoPool pool = new GrafoPool(4);
+		Grafo grafo = new Grafo(10, 12, 1L);
+		assertThrows(IllegalArgumentException.class, () -> pool.restituisci(grafo.snapshot()));
+		try (Grafo esterno = Grafo.fuoriHeap(10, 12, 1L)) {
+			assertThrows(IllegalArgumentException.class, () -> pool.restituisci(esterno));
+		}
+		Grafo chiuso = Grafo.fuoriHeap(10, 12, 1L);
+		chiuso.close();
+		assertThrows(IllegalArgumentException.class, () -> pool.restituisci(chiuso));
+		assertEquals(0, pool.getLiberi(10, 12));
+		// la fotografia rifiutata non ha toccato il grafo originale
+		assertTrue(grafo.isEquilibrato());
+	}
+
+}
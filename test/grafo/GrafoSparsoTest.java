@@ -0,0 +1,92 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test del grafo sparso: grado richiesto per ogni nodo, adiacenze compresse
+ * coerenti con l'elenco degli archi, equilibrio e costruzione a strati di
+ * cicli con poche pietre
+ */
+class GrafoSparsoTest {
+
+	/**
+	 * controlla grado, archi semplici, valori ed equilibrio di ogni nodo
+	 */
+	private static void controlla(GrafoSparso grafo) {
+		int n = grafo.getN();
+		int grado = grafo.getGrado();
+		assertEquals(n * grado / 2, grafo.getNumeroArchi());
+		for (int i = 0; i < n; i++) {
+			assertEquals(grado, grafo.getGrado(i), "nodo " + i);
+			Set<Integer> visti = new HashSet<Integer>();
+			PrimitiveIterator.OfInt archi = grafo.iteratoreArchi(i);
+			for (int k = 0; k < grado; k++) {
+				int j = grafo.getVicino(i, k);
+				int a = grafo.getIndiceArco(i, k);
+				assertNotEquals(i, j);
+				assertTrue(visti.add(j), "arco doppio tra " + i + " e " + j);
+				assertTrue(grafo.getNodo1(a) == i && grafo.getNodo2(a) == j
+						|| grafo.getNodo1(a) == j && grafo.getNodo2(a) == i);
+				assertEquals(a, archi.nextInt());
+			}
+			assertFalse(archi.hasNext());
+			assertEquals(0, grafo.getBilancio(i), "nodo " + i);
+		}
+		for (int a = 0; a < grafo.getNumeroArchi(); a++) {
+			assertTrue(grafo.getValore(a) >= 1 && grafo.getValore(a) <= grafo.getV());
+		}
+		assertTrue(new EquilibrioValidator().valida(grafo));
+	}
+
+	@Test
+	void gradoRichiestoEdEquilibrio() {
+		for (int grado : new int[] { 2, 4, 8, 16 }) {
+			for (long seme = 0; seme < 3; seme++) {
+				controlla(new GrafoSparso(100, 2000, grado, seme));
+			}
+		}
+	}
+
+	@Test
+	void pochePietre() {
+		// con grado 2 c' solo il ciclo hamiltoniano, anche con 3 pietre
+		for (int n = 3; n < 12; n++) {
+			GrafoSparso grafo = new GrafoSparso(5, n, 2, n);
+			controlla(grafo);
+			int valore = grafo.getValore(0);
+			for (int a = 0; a < n; a++) {
+				assertEquals(valore, grafo.getValore(a));
+			}
+		}
+		// con grado 4 e grado 6 il secondo e il terzo strato sono cicli corti
+		for (long seme = 0; seme < 20; seme++) {
+			controlla(new GrafoSparso(5, 12, 4, seme));
+			controlla(new GrafoSparso(5, 18, 6, seme));
+		}
+	}
+
+	@Test
+	void gradiImpossibiliRifiutati() {
+		assertThrows(IllegalArgumentException.class, () -> new GrafoSparso(5, 100, 3, 1L));
+		assertThrows(IllegalArgumentException.class, () -> new GrafoSparso(5, 100, 1, 1L));
+		assertThrows(IllegalArgumentException.class, () -> new GrafoSparso(5, 11, 4, 1L));
+		assertThrows(IllegalArgumentException.class, () -> new GrafoSparso(5, 2, 2, 1L));
+		assertThrows(IllegalArgumentException.class, () -> new GrafoSparso(0, 100, 2, 1L));
+	}
+
+	@Test
+	void stessoSemeStessoGrafo() {
+		GrafoSparso a = new GrafoSparso(50, 500, 6, 9L);
+		GrafoSparso b = new GrafoSparso(50, 500, 6, 9L);
+		for (int k = 0; k < a.getNumeroArchi(); k++) {
+			assertEquals(a.getNodo1(k), b.getNodo1(k));
+			assertEquals(a.getNodo2(k), b.getNodo2(k));
+			assertEquals(a.getFlusso(k), b.getFlusso(k));
+		}
+	}
+
+}
@@ -0,0 +1,182 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test delle operazioni del grafo: ricerca dei nodi e degli archi mancanti,
+ * aggiunta di nodi, riequilibrio dopo una modifica e generazione a tempo
+ */
+class GrafoTest {
+
+	@Test
+	void getNodoPerColore() {
+		Grafo grafo = new Grafo(20, 12, 1L);
+		for (int i = 0; i < 12; i++) {
+			Nodo nodo = grafo.getNodo(i);
+			assertSame(nodo, grafo.getNodo(nodo.getColore()));
+		}
+		assertEquals(-1, grafo.getNodo("inesistente").getId());
+	}
+
+	@Test
+	void getArcoMancanteSenzaAllocare() {
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean thread = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		assumeTrue(thread.isThreadAllocatedMemorySupported() && thread.isThreadAllocatedMemoryEnabled());
+		Grafo grafo = new Grafo(20, 100, 1L);
+		Arco vuoto = grafo.getArco(-1);
+		assertTrue(vuoto.isVuoto());
+		int oltre = grafo.getTabella().getNumeroArchi();
+		long id = Thread.currentThread().getId();
+		long prima = thread.getThreadAllocatedBytes(id);
+		for (int k = 0; k < 1_000_000; k++) {
+			if (grafo.getArco(-1 - k) != vuoto || grafo.getArco(oltre + k) != vuoto) {
+				fail("arco vuoto diverso alla ripetizione " + k);
+			}
+		}
+		long allocati = thread.getThreadAllocatedBytes(id) - prima;
+		// due milioni di archi nuovi occuperebbero decine di MB
+		assertTrue(allocati < 64 * 1024, "allocati " + allocati + " byte");
+	}
+
+	@Test
+	void addNodoMantieneLeViste() {
+		Grafo grafo = new Grafo(50, 10, 1L);
+		Arco arco = grafo.getArco(MemoriaArchi.indice(2, 5, 10));
+		Nodo nuovo = grafo.addNodo();
+		assertEquals(10, nuovo.getId());
+		assertEquals(11, grafo.getN());
+		assertTrue(grafo.isEquilibrato());
+		assertSame(nuovo, grafo.getNodo(nuovo.getColore()));
+		int chiave = MemoriaArchi.indice(2, 5, 11);
+		assertSame(arco, grafo.getArco(chiave));
+		assertEquals(grafo.getTabella().getFlusso(chiave), arco.getFlusso());
+		arco.setValore(3, false);
+		assertEquals(3, grafo.getTabella().getFlusso(chiave));
+	}
+
+	@Test
+	void addNodoRifiutaLeMemorieCheNonCrescono() {
+		Grafo grafo = new Grafo(50, 10, 1L);
+		assertThrows(UnsupportedOperationException.class, () -> grafo.snapshot().addNodo());
+		assertThrows(UnsupportedOperationException.class, () -> Grafo.concorrente(50, 10, 1L).addNodo());
+		try (Grafo esterno = Grafo.fuoriHeap(50, 10, 1L)) {
+			assertThrows(UnsupportedOperationException.class, esterno::addNodo);
+		}
+		// dopo una fotografia il grafo sta in una memoria a blocchi e cresce ancora
+		grafo.addNodo();
+		assertTrue(grafo.isEquilibrato());
+	}
+
+	@Test
+	void rebalanceAfterRiportaLaDifferenza() {
+		Grafo grafo = new Grafo(20, 10, 3L);
+		int chiave = MemoriaArchi.indice(1, 4, 10);
+		Arco arco = grafo.getArco(chiave);
+		arco.setValore(arco.getValore() == 20 ? 19 : arco.getValore() + 1, arco.getDirezione());
+		assertFalse(grafo.isEquilibrato());
+		assertTrue(grafo.rebalanceAfter(chiave));
+		assertTrue(new EquilibrioValidator().valida(grafo));
+	}
+
+	@Test
+	void rebalanceAfterGuardaSoloIDueNodi() {
+		Grafo grafo = new Grafo(20, 10, 3L);
+		MemoriaArchi tabella = grafo.getTabella();
+		int primo = MemoriaArchi.indice(0, 1, 10);
+		int secondo = MemoriaArchi.indice(4, 7, 10);
+		tabella.setFlusso(primo, tabella.getFlusso(primo) == 20 ? 19 : tabella.getFlusso(primo) + 1);
+		tabella.setFlusso(secondo, tabella.getFlusso(secondo) == 20 ? 19 : tabella.getFlusso(secondo) + 1);
+		// ogni chiamata ripara solo i nodi del proprio arco
+		assertTrue(grafo.rebalanceAfter(primo));
+		assertFalse(grafo.isEquilibrato());
+		assertTrue(grafo.rebalanceAfter(secondo));
+		assertTrue(grafo.isEquilibrato());
+	}
+
+	@Test
+	void rebalanceAfterRifiutaValoriFuoriLimite() {
+		Grafo grafo = new Grafo(20, 10, 3L);
+		int chiave = MemoriaArchi.indice(2, 3, 10);
+		int prima = grafo.getTabella().getFlusso(chiave);
+		grafo.getTabella().setFlusso(chiave, 21);
+		assertFalse(grafo.rebalanceAfter(chiave));
+		assertEquals(21, grafo.getTabella().getFlusso(chiave));
+		grafo.getTabella().setFlusso(chiave, prima);
+		assertTrue(grafo.isEquilibrato());
+		assertFalse(grafo.rebalanceAfter(-1));
+	}
+
+	@Test
+	void generateConBudgetSempreInEquilibrio() {
+		EquilibrioValidator validatore = new EquilibrioValidator();
+		for (int n = 3; n < 20; n++) {
+			Grafo grafo = Grafo.generate(2 * n, n, Duration.ofSeconds(10));
+			assertTrue(validatore.valida(grafo), "n=" + n);
+		}
+	}
+
+	@Test
+	void generateRipiegaSullaCircolazione() {
+		GeneratoreEquilibrio rotto = (grafo, rnd) -> {
+			throw new IllegalStateException();
+		};
+		GeneratoreEquilibrio pigro = (grafo, rnd) -> {
+		};
+		for (GeneratoreEquilibrio generatore : new GeneratoreEquilibrio[] { rotto, pigro }) {
+			Grafo grafo = Grafo.generate(1000, 300, 1L, generatore, Duration.ofSeconds(10));
+			assertTrue(new EquilibrioValidator().valida(grafo));
+			assertInstanceOf(GeneratoreCircolazione.class, grafo.getGeneratore());
+		}
+	}
+
+	@Test
+	void generateRispettaIlBudget() {
+		long inizio = System.nanoTime();
+		assertThrows(ScadenzaSuperataException.class, () -> Grafo.generate(1000, 3000, Duration.ofMillis(1)));
+		assertThrows(ScadenzaSuperataException.class,
+				() -> Grafo.generate(1000, 3000, 1L, new GeneratoreGreedy(), Duration.ofMillis(1)));
+		// senza i controlli una sola circolazione con 3000 pietre dura quasi un secondo
+		assertTrue(System.nanoTime() - inizio < 500_000_000L);
+	}
+
+	@Test
+	void visteDelGrafoConcorrenteCreateDaPiuThread() throws Exception {
+		Grafo grafo = Grafo.concorrente(30, 60, 2L);
+		MemoriaArchi tabella = grafo.getTabella();
+		ExecutorService lettori = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> lavori = new ArrayList<Future<?>>();
+			for (int t = 0; t < 4; t++) {
+				int primo = t;
+				lavori.add(lettori.submit(() -> {
+					for (int a = primo; a < tabella.getNumeroArchi(); a += 2) {
+						Arco arco = grafo.getArco(a);
+						assertEquals(tabella.getFlusso(a), arco.getFlusso());
+						assertEquals(tabella.getNodo1(a), arco.getNodo1().getId());
+						assertEquals(tabella.getNodo2(a), arco.getNodo2().getId());
+					}
+				}));
+			}
+			for (Future<?> lavoro : lavori) {
+				lavoro.get();
+			}
+		} finally {
+			lettori.shutdown();
+		}
+		Arco arco = grafo.getArco(17);
+		assertSame(arco, grafo.getArco(17));
+		arco.setValore(5, true);
+		assertEquals(-5, tabella.getFlusso(17));
+	}
+
+}
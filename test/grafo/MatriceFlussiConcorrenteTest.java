@@ -0,0 +1,66 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test della memoria concorrente: nessuna modifica persa quando pi thread
+ * scrivono sugli stessi archi e bilanci esatti a scritture finite
+ */
+class MatriceFlussiConcorrenteTest {
+
+	@Test
+	void nessunaModificaPersa() throws Exception {
+		int n = 6;
+		int giri = 20_000;
+		MatriceFlussiConcorrente memoria = new MatriceFlussiConcorrente(n);
+		ExecutorService scrittori = Executors.newFixedThreadPool(4);
+		List<Future<?>> lavori = new ArrayList<Future<?>>();
+		try {
+			for (int t = 0; t < 4; t++) {
+				lavori.add(scrittori.submit(() -> {
+					for (int k = 0; k < giri; k++) {
+						int a = k % memoria.getNumeroArchi();
+						int attuale;
+						do {
+							attuale = memoria.getFlusso(a);
+						} while (!memoria.confrontaEImposta(a, attuale, attuale + 1));
+					}
+				}));
+			}
+			for (Future<?> lavoro : lavori) {
+				lavoro.get();
+			}
+		} finally {
+			scrittori.shutdown();
+		}
+		int[] bilanci = new int[n];
+		int totale = 0;
+		for (int a = 0; a < memoria.getNumeroArchi(); a++) {
+			int f = memoria.getFlusso(a);
+			totale += f;
+			bilanci[memoria.getNodo1(a)] -= f;
+			bilanci[memoria.getNodo2(a)] += f;
+		}
+		assertEquals(4 * giri, totale);
+		for (int i = 0; i < n; i++) {
+			assertEquals(bilanci[i], memoria.getBilancio(i), "nodo " + i);
+		}
+	}
+
+	@Test
+	void grafoConcorrenteUgualeAQuelloNormale() {
+		Grafo concorrente = Grafo.concorrente(30, 25, 8L);
+		Grafo atteso = new Grafo(30, 25, 8L);
+		assertInstanceOf(MatriceFlussiConcorrente.class, concorrente.getTabella());
+		for (int a = 0; a < atteso.getTabella().getNumeroArchi(); a++) {
+			assertEquals(atteso.getTabella().getFlusso(a), concorrente.getTabella().getFlusso(a));
+		}
+		assertTrue(new EquilibrioValidator().valida(concorrente));
+	}
+
+}
@@ -0,0 +1,92 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * test della memoria fuori dallo heap: grafo mappato su file e riaperto,
+ * ordine dei byte fisso e accessi dopo la chiusura
+ */
+class MatriceFlussiEsternaTest {
+
+	@TempDir
+	Path cartella;
+
+	@Test
+	void grafoSuFileRiaperto() throws IOException {
+		Path file = cartella.resolve("grafo");
+		Grafo atteso = new Grafo(30, 40, 5L);
+		try (Grafo grafo = Grafo.creaFile(file, 30, 40, 5L)) {
+			assertTrue(grafo.isEquilibrato());
+			grafo.getArco(3).setValore(grafo.getArco(3).getValore(), !grafo.getArco(3).getDirezione());
+		}
+		try (Grafo grafo = Grafo.apriFile(file)) {
+			assertEquals(30, grafo.getV());
+			assertEquals(40, grafo.getN());
+			assertEquals(5L, grafo.getSeme());
+			assertEquals(-atteso.getArco(3).getFlusso(), grafo.getArco(3).getFlusso());
+			for (int a = 4; a < grafo.getArchi().size(); a++) {
+				assertEquals(atteso.getArco(a).getFlusso(), grafo.getArco(a).getFlusso());
+			}
+		}
+	}
+
+	@Test
+	void grafoSuFileLittleEndian() throws IOException {
+		Path file = cartella.resolve("ordine");
+		try (Grafo grafo = Grafo.creaFile(file, 10, 5, 1L)) {
+			assertTrue(grafo.isEquilibrato());
+		}
+		byte[] byteFile = Files.readAllBytes(file);
+		assertEquals(1, byteFile[12]);
+		byteFile[12] = 0;
+		byteFile[15] = 1;
+		Files.write(file, byteFile);
+		assertThrows(IOException.class, () -> Grafo.apriFile(file));
+	}
+
+	@Test
+	void grafoChiusoNonSiUsaPiu() {
+		Grafo grafo = Grafo.fuoriHeap(10, 5, 1L);
+		Arco arco = grafo.getArco(0);
+		grafo.close();
+		grafo.close();
+		assertThrows(IllegalStateException.class, arco::getFlusso);
+		assertThrows(IllegalStateException.class, () -> grafo.getBilancio(0));
+	}
+
+	/**
+	 * ritorna i byte dei buffer diretti ancora allocati
+	 */
+	private static long memoriaDiretta() {
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+			if (pool.getName().equals("direct")) {
+				return pool.getMemoryUsed();
+			}
+		}
+		return 0;
+	}
+
+	@Test
+	void generazioneFallitaLiberaLaMemoria() throws IOException {
+		long prima = memoriaDiretta();
+		// con 40 pietre e potenza massima 1 l'equilibrio non esiste
+		assertThrows(IllegalArgumentException.class, () -> Grafo.fuoriHeap(1, 40, 1L));
+		assertEquals(prima, memoriaDiretta());
+		Path file = cartella.resolve("fallito");
+		assertThrows(IllegalArgumentException.class, () -> Grafo.creaFile(file, 1, 40, 1L));
+		// la mappatura  stata tolta, quindi il file si pu cancellare e ricreare
+		Files.delete(file);
+		try (Grafo grafo = Grafo.creaFile(file, 10, 40, 1L)) {
+			assertTrue(grafo.isEquilibrato());
+		}
+	}
+
+}
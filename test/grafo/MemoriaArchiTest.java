@@ -0,0 +1,107 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * test del contratto comune a tutte le memorie degli archi scrivibili: flussi
+ * con segno, bilanci aggiornati a ogni scrittura, confronto e impostazione,
+ * azzeramento
+ */
+class MemoriaArchiTest {
+
+	static Stream<Arguments> memorie() {
+		return Stream.of(
+				Arguments.of("matrice", (IntFunction<MemoriaArchi>) n -> new MatriceFlussi(n, 100)),
+				Arguments.of("matrice int", (IntFunction<MemoriaArchi>) n -> new MatriceFlussi(n, 100_000)),
+				Arguments.of("condivisa", (IntFunction<MemoriaArchi>) MatriceFlussiCondivisa::new),
+				Arguments.of("concorrente", (IntFunction<MemoriaArchi>) MatriceFlussiConcorrente::new),
+				Arguments.of("esterna", (IntFunction<MemoriaArchi>) n -> MatriceFlussiEsterna.alloca(n, 100, 0)));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("memorie")
+	void chiaviENodi(String nome, IntFunction<MemoriaArchi> crea) {
+		MemoriaArchi memoria = crea.apply(7);
+		assertEquals(21, memoria.getNumeroArchi());
+		int a = 0;
+		for (int i = 0; i < 7; i++) {
+			for (int c = i + 1; c < 7; c++) {
+				assertEquals(a, MemoriaArchi.indice(i, c, 7));
+				assertEquals(a, MemoriaArchi.indice(c, i, 7));
+				assertEquals(i, memoria.getNodo1(a));
+				assertEquals(c, memoria.getNodo2(a));
+				a++;
+			}
+		}
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("memorie")
+	void flussiEBilanci(String nome, IntFunction<MemoriaArchi> crea) {
+		MemoriaArchi memoria = crea.apply(5);
+		memoria.setFlussoTra(0, 3, 7);
+		assertEquals(7, memoria.getFlussoTra(0, 3));
+		assertEquals(-7, memoria.getFlussoTra(3, 0));
+		assertEquals(-7, memoria.getBilancio(0));
+		assertEquals(7, memoria.getBilancio(3));
+		memoria.setFlussoTra(4, 1, 2);
+		int a = MemoriaArchi.indice(1, 4, 5);
+		assertEquals(2, memoria.getValore(a));
+		assertTrue(memoria.getDirezione(a));
+		assertEquals(-2, memoria.getFlusso(a));
+		assertEquals(2, memoria.getBilancio(1));
+		assertEquals(-2, memoria.getBilancio(4));
+		memoria.setValore(a, 5, false);
+		assertEquals(-5, memoria.getBilancio(1));
+		assertEquals(5, memoria.getBilancio(4));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("memorie")
+	void confrontaEImposta(String nome, IntFunction<MemoriaArchi> crea) {
+		MemoriaArchi memoria = crea.apply(4);
+		memoria.setFlusso(2, 3);
+		assertFalse(memoria.confrontaEImposta(2, 4, 9));
+		assertEquals(3, memoria.getFlusso(2));
+		assertTrue(memoria.confrontaEImposta(2, 3, -6));
+		assertEquals(-6, memoria.getFlusso(2));
+		assertEquals(6, memoria.getBilancio(memoria.getNodo1(2)));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("memorie")
+	void azzera(String nome, IntFunction<MemoriaArchi> crea) {
+		MemoriaArchi memoria = crea.apply(6);
+		for (int a = 0; a < memoria.getNumeroArchi(); a++) {
+			memoria.setFlusso(a, a % 2 == 0 ? a + 1 : -a);
+		}
+		memoria.azzera();
+		for (int a = 0; a < memoria.getNumeroArchi(); a++) {
+			assertEquals(0, memoria.getFlusso(a));
+		}
+		for (int i = 0; i < 6; i++) {
+			assertEquals(0, memoria.getBilancio(i));
+		}
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("memorie")
+	void grafoSopraLaMemoria(String nome, IntFunction<MemoriaArchi> crea) {
+		MemoriaArchi memoria = crea.apply(9);
+		Grafo grafo = new Grafo(100, 3L, memoria);
+		new GeneratoreCircolazione().genera(grafo, new java.util.SplittableRandom(3L));
+		Grafo atteso = new Grafo(100, 9, 3L);
+		for (int a = 0; a < memoria.getNumeroArchi(); a++) {
+			assertEquals(atteso.getArco(a).getFlusso(), grafo.getArco(a).getFlusso());
+		}
+		assertTrue(new EquilibrioValidator().valida(grafo));
+	}
+
+}
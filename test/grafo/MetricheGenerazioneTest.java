@@ -0,0 +1,94 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * test della telemetria di generazione: contatori del registro delle metriche
+ * ed esito dell'evento JFR per generazioni riuscite e scadute, nessuna misura
+ * quando tutto  spento
+ */
+class MetricheGenerazioneTest {
+
+	@TempDir
+	Path cartella;
+
+	@AfterEach
+	void spegni() {
+		MetricheGenerazione.disattiva();
+	}
+
+	/**
+	 * crea un grafo di 15 pietre con tutti gli archi ancora da generare
+	 */
+	private static Grafo vuoto() {
+		return new Grafo(10, 5L, new MatriceFlussi(15, 10));
+	}
+
+	/**
+	 * esegue una generazione greedy riuscita e una con la scadenza gi passata
+	 */
+	private static void riuscitaEScaduta() {
+		GeneratoreGreedy greedy = new GeneratoreGreedy();
+		greedy.genera(vuoto(), new SplittableRandom(5L));
+		assertThrows(ScadenzaSuperataException.class,
+				() -> greedy.genera(vuoto(), new SplittableRandom(5L), System.nanoTime() - 1));
+	}
+
+	@Test
+	void contatoriAggiornati() {
+		MetricheGenerazione metriche = MetricheGenerazione.attiva();
+		assertSame(metriche, MetricheGenerazione.getAttive());
+		riuscitaEScaduta();
+		assertEquals(2, metriche.getGenerazioni());
+		assertEquals(1, metriche.getScadute());
+		assertEquals(0, metriche.getErrori());
+		assertTrue(metriche.getIterazioni() > 0);
+		assertTrue(metriche.getNanoMassimi() > 0);
+		assertTrue(metriche.getNanoPrimaFase() + metriche.getNanoSecondaFase() >= metriche.getNanoMassimi());
+	}
+
+	@Test
+	void esitoNellEventoJfr() throws IOException {
+		Path file = cartella.resolve("generazione.jfr");
+		try (Recording registrazione = new Recording()) {
+			registrazione.enable("grafo.Generazione");
+			registrazione.start();
+			riuscitaEScaduta();
+			registrazione.stop();
+			registrazione.dump(file);
+		}
+		List<String> esiti = new ArrayList<String>();
+		for (RecordedEvent evento : RecordingFile.readAllEvents(file)) {
+			if (evento.getEventType().getName().equals("grafo.Generazione")) {
+				assertEquals("greedy", evento.getString("generatore"));
+				assertEquals(15, evento.getInt("n"));
+				esiti.add(evento.getString("esito"));
+			}
+		}
+		assertEquals(List.of(EventoGenerazione.OK, EventoGenerazione.SCADENZA), esiti);
+	}
+
+	@Test
+	void nienteMisureDaSpente() {
+		MetricheGenerazione vecchie = MetricheGenerazione.attiva();
+		MetricheGenerazione.disattiva();
+		assertNull(MetricheGenerazione.getAttive());
+		assertNull(EventoGenerazione.apri("greedy", vuoto()));
+		riuscitaEScaduta();
+		assertEquals(0, vecchie.getGenerazioni());
+		assertEquals(0, vecchie.getScadute());
+	}
+
+}
@@ -0,0 +1,56 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test dei nodi: identificativi e nomi, nodi creati fuori da un grafo e archi
+ * dei nodi di un grafo completo
+ */
+class NodoTest {
+
+	@Test
+	void nomiOltreIDieciColori() {
+		assertEquals("giallo", new Nodo(0).getColore());
+		assertEquals("ciano", new Nodo(9).getColore());
+		assertEquals("giallo1", new Nodo(10).getColore());
+		assertEquals("verde12", new Nodo(121).getColore());
+		assertEquals("Err", new Nodo(true).getColore());
+		assertEquals(-1, new Nodo(true).getId());
+	}
+
+	@Test
+	void identificativiNegativiRifiutati() {
+		assertThrows(IllegalArgumentException.class, () -> new Nodo(-1));
+		assertThrows(IllegalArgumentException.class, () -> new Nodo(Integer.MIN_VALUE));
+	}
+
+	@Test
+	void nodiFuoriDaUnGrafo() {
+		Nodo a = new Nodo();
+		a.reset();
+		a = new Nodo();
+		Nodo b = new Nodo();
+		assertEquals(0, a.getId());
+		assertEquals(1, b.getId());
+		b.addArco(3);
+		assertEquals(1, b.getGrado());
+		Grafo grafo = new Grafo(10, 5, 1L);
+		assertThrows(UnsupportedOperationException.class, () -> grafo.getNodo(0).addArco(1));
+	}
+
+	@Test
+	void archiFuoriDalGradoRifiutati() {
+		Grafo grafo = new Grafo(5, 4, 1L);
+		Nodo ultimo = grafo.getNodo(3);
+		assertEquals(grafo.getNodo(2).getIndiceArco(2), ultimo.getIndiceArco(2));
+		assertThrows(IndexOutOfBoundsException.class, () -> ultimo.getIndiceArco(3));
+		assertThrows(IndexOutOfBoundsException.class, () -> grafo.getNodo(0).getIndiceArco(-1));
+		Nodo solo = new Nodo(0);
+		solo.addArco(7);
+		assertEquals(7, solo.getIndiceArco(0));
+		assertThrows(IndexOutOfBoundsException.class, () -> solo.getIndiceArco(1));
+	}
+
+}
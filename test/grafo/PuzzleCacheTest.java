@@ -0,0 +1,100 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test della scorta di puzzle: riempimento in sottofondo, forme impossibili e
+ * limite al numero di forme
+ */
+class PuzzleCacheTest {
+
+	@Test
+	void scortaRiempitaInSottofondo() {
+		ForkJoinPool pool = new ForkJoinPool(1);
+		try {
+			PuzzleCache cache = new PuzzleCache(4, 1L << 30, pool);
+			cache.prepara(12, 7, 5);
+			pool.awaitQuiescence(30, TimeUnit.SECONDS);
+			assertEquals(4, cache.getPronti(12, 7, 5));
+			Puzzle puzzle = cache.prendi(12, 7, 5);
+			assertEquals(5, puzzle.getDifficolta());
+			assertTrue(new Risolutore(puzzle.getGrafo()).isUnica(puzzle.getNascosti()));
+			assertEquals(1, cache.getColpi());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void formeImpossibiliRifiutateSubito() {
+		PuzzleCache cache = new PuzzleCache(4, 1L << 30, new ForkJoinPool(1));
+		assertThrows(IllegalArgumentException.class, () -> cache.prendi(10, 2, 0));
+		assertThrows(IllegalArgumentException.class, () -> cache.prendi(1, 4, 0));
+		assertThrows(IllegalArgumentException.class, () -> cache.prepara(5, 5, -1));
+		assertEquals(0, cache.getRiempimenti());
+	}
+
+	@Test
+	void formaFallitaNonVieneRiempitaDiNuovo() {
+		ForkJoinPool pool = new ForkJoinPool(1);
+		try {
+			PuzzleCache cache = new PuzzleCache(2, 1L << 30, pool);
+			for (int k = 0; k < 4; k++) {
+				// con 5 pietre 10 archi nascosti non hanno mai una soluzione unica
+				assertThrows(IllegalArgumentException.class, () -> cache.prendi(20, 5, 10));
+				pool.awaitQuiescence(30, TimeUnit.SECONDS);
+			}
+			assertEquals(1, cache.getRiempimenti());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void numeroDiFormeLimitato() {
+		ForkJoinPool pool = new ForkJoinPool(1);
+		try {
+			PuzzleCache cache = new PuzzleCache(2, 1L << 30, pool);
+			int forme = PuzzleCache.FORME_MASSIME + 50;
+			for (int k = 0; k < forme; k++) {
+				cache.prepara(5 + k, 4, 0);
+			}
+			pool.awaitQuiescence(60, TimeUnit.SECONDS);
+			int conPuzzle = 0;
+			for (int k = 0; k < forme; k++) {
+				if (cache.getPronti(5 + k, 4, 0) > 0) {
+					conPuzzle++;
+				}
+			}
+			assertTrue(conPuzzle <= PuzzleCache.FORME_MASSIME, "forme con puzzle: " + conPuzzle);
+			assertEquals(conPuzzle * 2 * Puzzle.stimaByte(10, 4), cache.getMemoria());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void getProntiNonCambiaLOrdineDiUso() {
+		ForkJoinPool pool = new ForkJoinPool(1);
+		try {
+			PuzzleCache cache = new PuzzleCache(2, 1L << 30, pool);
+			for (int k = 0; k < PuzzleCache.FORME_MASSIME; k++) {
+				cache.prepara(5 + k, 4, 0);
+			}
+			pool.awaitQuiescence(60, TimeUnit.SECONDS);
+			// la forma pi vecchia letta dal monitoraggio resta la prossima da dimenticare
+			assertTrue(cache.getPronti(5, 4, 0) > 0);
+			cache.prepara(5 + PuzzleCache.FORME_MASSIME, 4, 0);
+			pool.awaitQuiescence(60, TimeUnit.SECONDS);
+			assertEquals(0, cache.getPronti(5, 4, 0));
+			assertTrue(cache.getPronti(6, 4, 0) > 0);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test dei puzzle: archi nascosti con una sola soluzione e forme senza puzzle
+ */
+class PuzzleTest {
+
+	@Test
+	void ilPuzzleHaUnaSolaSoluzione() {
+		Puzzle puzzle = Puzzle.crea(12, 8, 10, 5L);
+		Grafo grafo = puzzle.getGrafo();
+		BitSet nascosti = puzzle.getNascosti();
+		assertEquals(10, puzzle.getDifficolta());
+		assertTrue(new Risolutore(grafo).isUnica(nascosti));
+		int[] valori = new Risolutore(grafo).risolvi(nascosti);
+		for (int a = nascosti.nextSetBit(0); a >= 0; a = nascosti.nextSetBit(a + 1)) {
+			assertEquals(grafo.getArco(a).getValore(), valori[a]);
+		}
+	}
+
+	@Test
+	void formeSenzaPuzzleRifiutate() {
+		assertThrows(IllegalArgumentException.class, () -> Puzzle.crea(10, 2, 0, 1L));
+		assertThrows(IllegalArgumentException.class, () -> Puzzle.crea(10, 5, 11, 1L));
+	}
+
+}
@@ -0,0 +1,42 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test del risolutore: unicit della soluzione e valori ricavati per gli archi
+ * nascosti
+ */
+class RisolutoreTest {
+
+	@Test
+	void senzaArchiNascostiLaSoluzioneEUnica() {
+		Grafo grafo = new Grafo(10, 8, 1L);
+		assertTrue(new Risolutore(grafo).isUnica(new BitSet()));
+	}
+
+	@Test
+	void unArcoNascostoSiRicavaDalBilancio() {
+		Grafo grafo = new Grafo(10, 8, 1L);
+		for (int a = 0; a < grafo.getArchi().size(); a++) {
+			BitSet nascosti = new BitSet();
+			nascosti.set(a);
+			Risolutore risolutore = new Risolutore(grafo);
+			assertTrue(risolutore.isUnica(nascosti));
+			assertEquals(grafo.getArco(a).getValore(), new Risolutore(grafo).risolvi(nascosti)[a]);
+		}
+	}
+
+	@Test
+	void tuttiGliArchiNascostiNonSonoUnici() {
+		Grafo grafo = new Grafo(10, 6, 1L);
+		BitSet nascosti = new BitSet();
+		nascosti.set(0, grafo.getArchi().size());
+		assertFalse(new Risolutore(grafo).isUnica(nascosti));
+		assertNotNull(new Risolutore(grafo).risolvi(nascosti));
+	}
+
+}
@@ -0,0 +1,122 @@
+package grafo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * test delle fotografie: restano immutabili mentre il grafo cambia, sono di
+ * sola lettura e nei grafi concorrenti flussi e bilanci restano coerenti
+ */
+class SnapshotTest {
+
+	/**
+	 * ritorna i flussi di tutti gli archi
+	 */
+	private static int[] flussi(Grafo grafo) {
+		int[] flussi = new int[grafo.getTabella().getNumeroArchi()];
+		for (int a = 0; a < flussi.length; a++) {
+			flussi[a] = grafo.getTabella().getFlusso(a);
+		}
+		return flussi;
+	}
+
+	@Test
+	void fotografiaIsolataDalGrafo() {
+		Grafo grafo = new Grafo(20, 100, 3L);
+		Arco arco = grafo.getArco(5);
+		int[] prima = flussi(grafo);
+		Grafo fotografia = grafo.snapshot();
+		arco.setValore(7, true);
+		assertEquals(-7, grafo.getArco(5).getFlusso());
+		grafo.regenerate(99L);
+		Grafo seconda = grafo.snapshot();
+		grafo.regenerate(100L);
+		assertArrayEquals(prima, flussi(fotografia));
+		assertArrayEquals(flussi(new Grafo(20, 100, 99L)), flussi(seconda));
+		assertTrue(fotografia.isEquilibrato());
+	}
+
+	@Test
+	void fotografiaDiSolaLettura() {
+		Grafo fotografia = new Grafo(20, 10, 3L).snapshot();
+		assertThrows(UnsupportedOperationException.class, () -> fotografia.getArco(0).setValore(1, false));
+		assertThrows(UnsupportedOperationException.class, fotografia::reset);
+	}
+
+	@Test
+	void fotografiaDiGrafiConcorrentiEFuoriHeap() {
+		Grafo concorrente = Grafo.concorrente(20, 30, 1L);
+		Grafo esterno = Grafo.fuoriHeap(20, 30, 1L);
+		try (esterno) {
+			for (Grafo grafo : new Grafo[] { concorrente, esterno }) {
+				int[] prima = flussi(grafo);
+				Grafo fotografia = grafo.snapshot();
+				grafo.getArco(0).setValore(3, false);
+				grafo.getArco(7).setValore(4, true);
+				assertArrayEquals(prima, flussi(fotografia));
+				assertTrue(new EquilibrioValidator().valida(fotografia));
+			}
+		}
+	}
+
+	@Test
+	void fotografieConcorrentiCoerenti() throws Exception {
+		int n = 120;
+		int v = 30;
+		Grafo grafo = Grafo.concorrente(v, n, 7L);
+		MemoriaArchi tabella = grafo.getTabella();
+		AtomicBoolean fine = new AtomicBoolean();
+		ExecutorService scrittori = Executors.newFixedThreadPool(3);
+		List<Future<?>> lavori = new ArrayList<Future<?>>();
+		for (int t = 0; t < 3; t++) {
+			SplittableRandom rnd = new SplittableRandom(t);
+			lavori.add(scrittori.submit(() -> {
+				while (!fine.get()) {
+					int a = rnd.nextInt(tabella.getNumeroArchi());
+					tabella.confrontaEImposta(a, tabella.getFlusso(a), rnd.nextInt(2 * v + 1) - v);
+				}
+			}));
+		}
+		try {
+			for (int k = 0; k < 50; k++) {
+				MemoriaArchi fotografia = grafo.snapshot().getTabella();
+				int[] bilanci = new int[n];
+				int a = 0;
+				for (int i = 0; i < n; i++) {
+					for (int c = i + 1; c < n; c++) {
+						int f = fotografia.getFlusso(a++);
+						bilanci[i] -= f;
+						bilanci[c] += f;
+					}
+				}
+				for (int i = 0; i < n; i++) {
+					assertEquals(bilanci[i], fotografia.getBilancio(i), "nodo " + i);
+				}
+			}
+		} finally {
+			fine.set(true);
+			scrittori.shutdown();
+		}
+		for (Future<?> lavoro : lavori) {
+			lavoro.get();
+		}
+		assertArrayEquals(new EquilibrioValidator().calcolaBilanci(grafo), bilanci(grafo));
+	}
+
+	/**
+	 * ritorna i bilanci memorizzati di tutti i nodi
+	 */
+	private static int[] bilanci(Grafo grafo) {
+		int[] bilanci = new int[grafo.getN()];
+		for (int i = 0; i < bilanci.length; i++) {
+			bilanci[i] = grafo.getBilancio(i);
+		}
+		return bilanci;
+	}
+
+}